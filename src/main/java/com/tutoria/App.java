@@ -7,11 +7,15 @@ import java.util.Set;
 
 import com.tutoria.controller.AIController;
 import com.tutoria.controller.AuthController;
+import com.tutoria.controller.DocumentoController;
 import com.tutoria.controller.UserController;
 import com.tutoria.service.AIService;
 import com.tutoria.service.AuthService;
+import com.tutoria.service.DocumentoService;
 import com.tutoria.service.UserService;
 import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.PDFReader;
+import com.tutoria.util.ServidorEmbutido;
 
 import static spark.Spark.before;
 import static spark.Spark.get;
@@ -26,6 +30,8 @@ public class App {
 
     public static void main(String[] args) throws SQLException {
 
+        ServidorEmbutido.configurar();
+
         int assignedPort = getAssignedPort();
         port(assignedPort);
 
@@ -40,6 +46,7 @@ public class App {
 
         AuthService authService = new AuthService();
         AIService aiService = new AIService(ConfigLoader.getAIApiKey());
+        DocumentoService documentoService = new DocumentoService(new PDFReader());
 
         staticFiles.location("/public");
 
@@ -74,7 +81,8 @@ public class App {
             }
         });
 
-        new AIController(aiService).configurarRotas();
+        new AIController(aiService, documentoService).configurarRotas();
+        new DocumentoController(documentoService).configurarRotas();
         new UserController(userService).configurarRotas();
         new AuthController(userService, authService).configurarRotas();
 
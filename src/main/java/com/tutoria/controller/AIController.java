@@ -1,23 +1,44 @@
 package com.tutoria.controller;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import javax.servlet.MultipartConfigElement;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
+import com.tutoria.model.Documento;
 import com.tutoria.model.Flashcard;
+import com.tutoria.model.QuestaoQuiz;
 import com.tutoria.model.Quiz;
 import com.tutoria.service.AIService;
+import com.tutoria.service.DocumentoService;
+import com.tutoria.util.DisjuntorCircuito;
+import com.tutoria.util.EmissorSSE;
+import com.tutoria.util.Futuros;
 import com.tutoria.util.PDFReader;
+import com.tutoria.util.SobrecargaException;
 
 import spark.Request;
 import spark.Response;
+import static com.tutoria.controller.ErrosHttp.criarErro;
 import static spark.Spark.exception;
 import static spark.Spark.get;
 import static spark.Spark.notFound;
@@ -26,10 +47,10 @@ import static spark.Spark.post;
 public class AIController {
 
     private final AIService aiService;
+    private final DocumentoService documentoService;
     private final PDFReader pdfReader;
     private final Gson gson;
     
-    private static final int MAX_FILE_SIZE = 25 * 1024 * 1024;
     private static final int MIN_QUESTOES = 1;
     private static final int MAX_QUESTOES = 20;
     private static final int MIN_FLASHCARDS = 1;
@@ -37,9 +58,11 @@ public class AIController {
     private static final int MAX_PERGUNTA_LENGTH = 1000;
     private static final int MAX_CONTEXTO_LENGTH = 50000;
     private static final int MAX_TEXTO_LENGTH = 100000;
+    private static final long TIMEOUT_ASSINCRONO_MS = 5 * 60 * 1000;
 
-    public AIController(AIService aiService) {
+    public AIController(AIService aiService, DocumentoService documentoService) {
         this.aiService = aiService;
+        this.documentoService = documentoService;
         this.pdfReader = new PDFReader();
         this.gson = new Gson();
     }
@@ -49,42 +72,70 @@ public class AIController {
         // ========== ROTAS DE RESUMO ==========
 
         // 1. POST /api/ai/resumir/pdf - Resumir PDF
-        post("/api/ai/resumir/pdf", (req, res) -> resumirPDF(req, res));
+        post("/api/ai/resumir/pdf", (req, res) -> resumirPDF(req, res, false));
         
         // 2. POST /api/ai/resumir/texto - Resumir texto direto
-        post("/api/ai/resumir/texto", (req, res) -> resumirTexto(req, res));
+        post("/api/ai/resumir/texto", (req, res) -> resumirTexto(req, res, false));
+
+        // 1b/2b. Versões em streaming (Server-Sent Events)
+        post("/api/ai/resumir/pdf/stream", (req, res) -> resumirPDF(req, res, true));
+        post("/api/ai/resumir/texto/stream", (req, res) -> resumirTexto(req, res, true));
         
         // ========== ROTAS DE QUIZ ==========
 
         // 3. POST /api/ai/quiz/pdf - Criar Quiz de PDF
-        post("/api/ai/quiz/pdf", (req, res) -> criarQuizPDF(req, res));
+        post("/api/ai/quiz/pdf", (req, res) -> criarQuizPDF(req, res, false));
         
         // 4. POST /api/ai/quiz/texto - Criar Quiz de texto
-        post("/api/ai/quiz/texto", (req, res) -> criarQuizTexto(req, res));
+        post("/api/ai/quiz/texto", (req, res) -> criarQuizTexto(req, res, false));
+
+        // 3b/4b. Versões em streaming: cada questão é enviada assim que fica pronta
+        post("/api/ai/quiz/pdf/stream", (req, res) -> criarQuizPDF(req, res, true));
+        post("/api/ai/quiz/texto/stream", (req, res) -> criarQuizTexto(req, res, true));
         
         // ========== ROTAS DE FLASHCARDS ==========
 
         // 5. POST /api/ai/flashcards/pdf - Criar Flashcards de PDF
-        post("/api/ai/flashcards/pdf", (req, res) -> criarFlashcardsPDF(req, res));
+        post("/api/ai/flashcards/pdf", (req, res) -> criarFlashcardsPDF(req, res, false));
         
         // 6. POST /api/ai/flashcards/texto - Criar Flashcards de texto
-        post("/api/ai/flashcards/texto", (req, res) -> criarFlashcardsTexto(req, res));
+        post("/api/ai/flashcards/texto", (req, res) -> criarFlashcardsTexto(req, res, false));
+
+        // 5b/6b. Versões em streaming: cada flashcard é enviado assim que fica pronto
+        post("/api/ai/flashcards/pdf/stream", (req, res) -> criarFlashcardsPDF(req, res, true));
+        post("/api/ai/flashcards/texto/stream", (req, res) -> criarFlashcardsTexto(req, res, true));
         
         // ========== ROTAS DE PERGUNTAS ==========
 
         // 7. POST /api/ai/perguntar - Responder dúvida simples (sem contexto)
-        post("/api/ai/perguntar", (req, res) -> responderDuvidaSimples(req, res));
+        post("/api/ai/perguntar", (req, res) -> responderDuvidaSimples(req, res, false));
         
         // 8. POST /api/ai/perguntar/contexto - Responder dúvida com contexto de texto
-        post("/api/ai/perguntar/contexto", (req, res) -> responderDuvidaComContexto(req, res));
+        post("/api/ai/perguntar/contexto", (req, res) -> responderDuvidaComContexto(req, res, false));
         
         // 9. POST /api/ai/perguntar/pdf - Responder dúvida com contexto de PDF
-        post("/api/ai/perguntar/pdf", (req, res) -> responderDuvidaComPDF(req, res));
+        post("/api/ai/perguntar/pdf", (req, res) -> responderDuvidaComPDF(req, res, false));
+
+        // 7b/8b/9b. Versões em streaming (Server-Sent Events)
+        post("/api/ai/perguntar/stream", (req, res) -> responderDuvidaSimples(req, res, true));
+        post("/api/ai/perguntar/contexto/stream", (req, res) -> responderDuvidaComContexto(req, res, true));
+        post("/api/ai/perguntar/pdf/stream", (req, res) -> responderDuvidaComPDF(req, res, true));
         
+        // ========== ROTAS DE PACOTE DE ESTUDO ==========
+
+        // 12. POST /api/ai/pacote - Resumo, quiz e flashcards de um mesmo conteúdo (texto ou PDF)
+        post("/api/ai/pacote", (req, res) -> criarPacote(req, res, false));
+
+        // 12b. Versão em streaming: cada parte é enviada assim que fica pronta
+        post("/api/ai/pacote/stream", (req, res) -> criarPacote(req, res, true));
+
         // ========== ROTAS AUXILIARES ==========
 
         // 10. GET /api/ai/health - Health check
         get("/api/ai/health", (req, res) -> healthCheck(req, res));
+
+        // 11. GET /api/ai/metricas - Métricas do serviço de IA
+        get("/api/ai/metricas", (req, res) -> metricas(req, res));
         
         exception(IllegalArgumentException.class, (e, req, res) -> {
             res.status(400);
@@ -123,70 +174,67 @@ public class AIController {
         });
     }
     
+    // Com o circuito aberto responde 503 para o balanceador tirar a instância de rotação
     private String healthCheck(Request req, Response res) {
         res.type("application/json");
+
+        DisjuntorCircuito.Estado circuito = aiService.estadoCircuito();
+        if (circuito == DisjuntorCircuito.Estado.ABERTO) {
+            res.status(503);
+        }
+
         JsonObject response = new JsonObject();
-        response.addProperty("status", "ok");
+        response.addProperty("status", circuito == DisjuntorCircuito.Estado.FECHADO ? "ok" : "degradado");
+        response.addProperty("circuito", circuito.name());
         response.addProperty("service", "AI Service");
         response.addProperty("timestamp", System.currentTimeMillis());
         return gson.toJson(response);
     }
 
+    private String metricas(Request req, Response res) {
+        res.type("application/json");
+        Map<String, Object> metricas = aiService.metricas();
+        metricas.put("documentos", documentoService.metricas());
+        return gson.toJson(metricas);
+    }
+
     // ========================================
     // MÉTODOS DE RESUMO
     // ========================================
 
     // 1. RESUMIR PDF
-    private String resumirPDF(Request req, Response res) throws IOException, ServletException {
+    private String resumirPDF(Request req, Response res, boolean stream) throws IOException, ServletException {
         res.type("application/json");
         
-        req.attribute("org.eclipse.jetty.multipartConfig", 
-            new MultipartConfigElement(
-                System.getProperty("java.io.tmpdir"),
-                MAX_FILE_SIZE,
-                MAX_FILE_SIZE,
-                1024 * 1024
-            ));
-        
-        Part filePart = req.raw().getPart("pdf");
-        if (filePart == null) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF não enviado"));
+        EntradaPDF entrada = lerEntradaPDF(req, res);
+        if (entrada.erro != null) {
+            return entrada.erro;
         }
         
-        String contentType = filePart.getContentType();
-        if (!contentType.equals("application/pdf")) {
-            res.status(400);
-            return gson.toJson(criarErro("Arquivo deve ser um PDF"));
-        }
+        String textoPDF = entrada.texto;
         
-        if (filePart.getSize() > MAX_FILE_SIZE) {
-            res.status(400);
-            return gson.toJson(criarErro("Arquivo muito grande. Máximo: 15MB"));
+        if (stream) {
+            return transmitirEventos(req, trecho -> aiService.resumirTextoStream(textoPDF, trecho), resumo -> {
+                JsonObject fim = new JsonObject();
+                fim.addProperty("tamanhoOriginal", textoPDF.length());
+                fim.addProperty("tamanhoResumo", resumo.length());
+                fim.addProperty("fonte", "pdf");
+                return fim;
+            });
         }
-        
-        InputStream inputStream = filePart.getInputStream();
-        String textoPDF = pdfReader.extrairTextoDePDF(inputStream);
-        
-        if (textoPDF.trim().isEmpty()) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF vazio ou sem texto extraível"));
-        }
-        
-        String resumo = aiService.resumirTexto(textoPDF);
-        
-        JsonObject resposta = new JsonObject();
-        resposta.addProperty("resumo", resumo);
-        resposta.addProperty("tamanhoOriginal", textoPDF.length());
-        resposta.addProperty("tamanhoResumo", resumo.length());
-        resposta.addProperty("fonte", "pdf");
-        
-        res.status(200);
-        return gson.toJson(resposta);
+
+        return responderAssincrono(req, aiService.resumirTextoAsync(textoPDF), resumo -> {
+            JsonObject resposta = new JsonObject();
+            resposta.addProperty("resumo", resumo);
+            resposta.addProperty("tamanhoOriginal", textoPDF.length());
+            resposta.addProperty("tamanhoResumo", resumo.length());
+            resposta.addProperty("fonte", "pdf");
+            return gson.toJson(resposta);
+        });
     }
 
     // 2. RESUMIR TEXTO
-    private String resumirTexto(Request req, Response res) throws IOException {
+    private String resumirTexto(Request req, Response res, boolean stream) throws IOException {
         res.type("application/json");
         
         JsonObject body = gson.fromJson(req.body(), JsonObject.class);
@@ -209,16 +257,24 @@ public class AIController {
                 String.format("Texto muito longo. Máximo: %d caracteres", MAX_TEXTO_LENGTH)));
         }
         
-        String resumo = aiService.resumirTexto(texto);
-        
-        JsonObject resposta = new JsonObject();
-        resposta.addProperty("resumo", resumo);
-        resposta.addProperty("tamanhoOriginal", texto.length());
-        resposta.addProperty("tamanhoResumo", resumo.length());
-        resposta.addProperty("fonte", "texto");
-        
-        res.status(200);
-        return gson.toJson(resposta);
+        if (stream) {
+            return transmitirEventos(req, trecho -> aiService.resumirTextoStream(texto, trecho), resumo -> {
+                JsonObject fim = new JsonObject();
+                fim.addProperty("tamanhoOriginal", texto.length());
+                fim.addProperty("tamanhoResumo", resumo.length());
+                fim.addProperty("fonte", "texto");
+                return fim;
+            });
+        }
+
+        return responderAssincrono(req, aiService.resumirTextoAsync(texto), resumo -> {
+            JsonObject resposta = new JsonObject();
+            resposta.addProperty("resumo", resumo);
+            resposta.addProperty("tamanhoOriginal", texto.length());
+            resposta.addProperty("tamanhoResumo", resumo.length());
+            resposta.addProperty("fonte", "texto");
+            return gson.toJson(resposta);
+        });
     }
 
     // ========================================
@@ -226,39 +282,24 @@ public class AIController {
     // ========================================
 
     // 3. CRIAR QUIZ DE PDF
-    private String criarQuizPDF(Request req, Response res) throws IOException, ServletException {
+    private String criarQuizPDF(Request req, Response res, boolean stream) throws IOException, ServletException {
         res.type("application/json");
         
-        req.attribute("org.eclipse.jetty.multipartConfig", 
-            new MultipartConfigElement(
-                System.getProperty("java.io.tmpdir"),
-                MAX_FILE_SIZE,
-                MAX_FILE_SIZE,
-                1024 * 1024
-            ));
-        
-        Part filePart = req.raw().getPart("pdf");
-        if (filePart == null) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF não enviado"));
-        }
-        
-        if (!filePart.getContentType().equals("application/pdf")) {
-            res.status(400);
-            return gson.toJson(criarErro("Arquivo deve ser um PDF"));
+        EntradaPDF entrada = lerEntradaPDF(req, res);
+        if (entrada.erro != null) {
+            return entrada.erro;
         }
         
         String titulo = "Quiz";
         int numeroQuestoes = 5;
         
-        Part tituloPart = req.raw().getPart("titulo");
-        if (tituloPart != null) {
-            titulo = new String(tituloPart.getInputStream().readAllBytes()).trim();
+        String tituloCampo = entrada.campo("titulo");
+        if (tituloCampo != null) {
+            titulo = tituloCampo;
         }
         
-        Part numQuestoesPart = req.raw().getPart("numeroQuestoes");
-        if (numQuestoesPart != null) {
-            String numStr = new String(numQuestoesPart.getInputStream().readAllBytes()).trim();
+        String numStr = entrada.campo("numeroQuestoes");
+        if (numStr != null) {
             try {
                 numeroQuestoes = Integer.parseInt(numStr);
             } catch (NumberFormatException e) {
@@ -274,22 +315,18 @@ public class AIController {
                     MIN_QUESTOES, MAX_QUESTOES)));
         }
         
-        InputStream inputStream = filePart.getInputStream();
-        String conteudo = pdfReader.extrairTextoDePDF(inputStream);
+        String conteudo = entrada.texto;
         
-        if (conteudo.trim().isEmpty()) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF vazio ou sem texto extraível"));
+        if (stream) {
+            return transmitirQuiz(req, conteudo, titulo, numeroQuestoes);
         }
-        
-        Quiz quiz = aiService.criarQuiz(conteudo, titulo, numeroQuestoes);
-        
-        res.status(200);
-        return gson.toJson(quiz);
+
+        return responderAssincrono(req, aiService.criarQuizAsync(conteudo, titulo, numeroQuestoes, req.attribute("userId")),
+                gson::toJson);
     }
 
     // 4. CRIAR QUIZ DE TEXTO
-    private String criarQuizTexto(Request req, Response res) throws IOException {
+    private String criarQuizTexto(Request req, Response res, boolean stream) throws IOException {
         res.type("application/json");
         
         JsonObject body = gson.fromJson(req.body(), JsonObject.class);
@@ -325,10 +362,24 @@ public class AIController {
                     MIN_QUESTOES, MAX_QUESTOES)));
         }
         
-        Quiz quiz = aiService.criarQuiz(conteudo, titulo, numeroQuestoes);
-        
-        res.status(200);
-        return gson.toJson(quiz);
+        if (stream) {
+            return transmitirQuiz(req, conteudo, titulo, numeroQuestoes);
+        }
+
+        return responderAssincrono(req, aiService.criarQuizAsync(conteudo, titulo, numeroQuestoes, req.attribute("userId")),
+                gson::toJson);
+    }
+
+    // Um evento "questao" por questão, na ordem em que o modelo as gera (ou
+    // sorteadas do banco de questões do usuário), e "fim" com o título e o total
+    private String transmitirQuiz(Request req, String conteudo, String titulo, int numeroQuestoes) throws IOException {
+        return this.<QuestaoQuiz, Quiz>transmitirItens(req, "questao", gson::toJsonTree,
+                questao -> aiService.criarQuizStream(conteudo, titulo, numeroQuestoes, req.attribute("userId"), questao), quiz -> {
+                    JsonObject fim = new JsonObject();
+                    fim.addProperty("titulo", quiz.getTitulo());
+                    fim.addProperty("total", quiz.getTotalQuestoes());
+                    return fim;
+                });
     }
 
     // ========================================
@@ -336,33 +387,18 @@ public class AIController {
     // ========================================
 
     // 5. CRIAR FLASHCARDS DE PDF
-    private String criarFlashcardsPDF(Request req, Response res) throws IOException, ServletException {
+    private String criarFlashcardsPDF(Request req, Response res, boolean stream) throws IOException, ServletException {
         res.type("application/json");
         
-        req.attribute("org.eclipse.jetty.multipartConfig", 
-            new MultipartConfigElement(
-                System.getProperty("java.io.tmpdir"),
-                MAX_FILE_SIZE,
-                MAX_FILE_SIZE,
-                1024 * 1024
-            ));
-        
-        Part filePart = req.raw().getPart("pdf");
-        if (filePart == null) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF não enviado"));
-        }
-        
-        if (!filePart.getContentType().equals("application/pdf")) {
-            res.status(400);
-            return gson.toJson(criarErro("Arquivo deve ser um PDF"));
+        EntradaPDF entrada = lerEntradaPDF(req, res);
+        if (entrada.erro != null) {
+            return entrada.erro;
         }
         
         int numeroCards = 10;
         
-        Part numCardsPart = req.raw().getPart("numeroCards");
-        if (numCardsPart != null) {
-            String numStr = new String(numCardsPart.getInputStream().readAllBytes()).trim();
+        String numStr = entrada.campo("numeroCards");
+        if (numStr != null) {
             try {
                 numeroCards = Integer.parseInt(numStr);
             } catch (NumberFormatException e) {
@@ -378,27 +414,23 @@ public class AIController {
                     MIN_FLASHCARDS, MAX_FLASHCARDS)));
         }
         
-        InputStream inputStream = filePart.getInputStream();
-        String conteudo = pdfReader.extrairTextoDePDF(inputStream);
+        String conteudo = entrada.texto;
         
-        if (conteudo.trim().isEmpty()) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF vazio ou sem texto extraível"));
+        if (stream) {
+            return transmitirFlashcards(req, conteudo, numeroCards, "pdf");
         }
-        
-        List<Flashcard> flashcards = aiService.criarFlashcards(conteudo, numeroCards);
-        
-        JsonObject resposta = new JsonObject();
-        resposta.add("flashcards", gson.toJsonTree(flashcards));
-        resposta.addProperty("total", flashcards.size());
-        resposta.addProperty("fonte", "pdf");
-        
-        res.status(200);
-        return gson.toJson(resposta);
+
+        return responderAssincrono(req, aiService.criarFlashcardsAsync(conteudo, numeroCards), flashcards -> {
+            JsonObject resposta = new JsonObject();
+            resposta.add("flashcards", gson.toJsonTree(flashcards));
+            resposta.addProperty("total", flashcards.size());
+            resposta.addProperty("fonte", "pdf");
+            return gson.toJson(resposta);
+        });
     }
 
     // 6. CRIAR FLASHCARDS DE TEXTO
-    private String criarFlashcardsTexto(Request req, Response res) throws IOException {
+    private String criarFlashcardsTexto(Request req, Response res, boolean stream) throws IOException {
         res.type("application/json");
         
         JsonObject body = gson.fromJson(req.body(), JsonObject.class);
@@ -429,15 +461,27 @@ public class AIController {
                     MIN_FLASHCARDS, MAX_FLASHCARDS)));
         }
         
-        List<Flashcard> flashcards = aiService.criarFlashcards(conteudo, numeroCards);
-        
-        JsonObject resposta = new JsonObject();
-        resposta.add("flashcards", gson.toJsonTree(flashcards));
-        resposta.addProperty("total", flashcards.size());
-        resposta.addProperty("fonte", "texto");
-        
-        res.status(200);
-        return gson.toJson(resposta);
+        if (stream) {
+            return transmitirFlashcards(req, conteudo, numeroCards, "texto");
+        }
+
+        return responderAssincrono(req, aiService.criarFlashcardsAsync(conteudo, numeroCards), flashcards -> {
+            JsonObject resposta = new JsonObject();
+            resposta.add("flashcards", gson.toJsonTree(flashcards));
+            resposta.addProperty("total", flashcards.size());
+            resposta.addProperty("fonte", "texto");
+            return gson.toJson(resposta);
+        });
+    }
+
+    private String transmitirFlashcards(Request req, String conteudo, int numeroCards, String fonte) throws IOException {
+        return this.<Flashcard, List<Flashcard>>transmitirItens(req, "flashcard", gson::toJsonTree,
+                card -> aiService.criarFlashcardsStream(conteudo, numeroCards, card), flashcards -> {
+                    JsonObject fim = new JsonObject();
+                    fim.addProperty("total", flashcards.size());
+                    fim.addProperty("fonte", fonte);
+                    return fim;
+                });
     }
 
     // ========================================
@@ -445,7 +489,7 @@ public class AIController {
     // ========================================
 
     // 7. RESPONDER DÚVIDA SIMPLES (sem contexto)
-    private String responderDuvidaSimples(Request req, Response res) throws IOException {
+    private String responderDuvidaSimples(Request req, Response res, boolean stream) throws IOException {
         res.type("application/json");
         
         JsonObject body = gson.fromJson(req.body(), JsonObject.class);
@@ -469,19 +513,26 @@ public class AIController {
                     MAX_PERGUNTA_LENGTH)));
         }
         
-        String resposta = aiService.responderDuvida(pergunta, null);
-        
-        JsonObject respostaJson = new JsonObject();
-        respostaJson.addProperty("resposta", resposta);
-        respostaJson.addProperty("temContexto", false);
-        respostaJson.addProperty("tipoContexto", "nenhum");
-        
-        res.status(200);
-        return gson.toJson(respostaJson);
+        if (stream) {
+            return transmitirEventos(req, trecho -> aiService.responderDuvidaStream(pergunta, null, trecho), resposta -> {
+                JsonObject fim = new JsonObject();
+                fim.addProperty("temContexto", false);
+                fim.addProperty("tipoContexto", "nenhum");
+                return fim;
+            });
+        }
+
+        return responderAssincrono(req, aiService.responderDuvidaAsync(pergunta, null), resposta -> {
+            JsonObject respostaJson = new JsonObject();
+            respostaJson.addProperty("resposta", resposta);
+            respostaJson.addProperty("temContexto", false);
+            respostaJson.addProperty("tipoContexto", "nenhum");
+            return gson.toJson(respostaJson);
+        });
     }
 
     // 8. RESPONDER DÚVIDA COM CONTEXTO DE TEXTO
-    private String responderDuvidaComContexto(Request req, Response res) throws IOException {
+    private String responderDuvidaComContexto(Request req, Response res, boolean stream) throws IOException {
         res.type("application/json");
         
         JsonObject body = gson.fromJson(req.body(), JsonObject.class);
@@ -523,49 +574,41 @@ public class AIController {
                     MAX_CONTEXTO_LENGTH)));
         }
         
-        String resposta = aiService.responderDuvida(pergunta, contexto);
-        
-        JsonObject respostaJson = new JsonObject();
-        respostaJson.addProperty("resposta", resposta);
-        respostaJson.addProperty("temContexto", true);
-        respostaJson.addProperty("tipoContexto", "texto");
-        respostaJson.addProperty("tamanhoContexto", contexto.length());
-        
-        res.status(200);
-        return gson.toJson(respostaJson);
+        if (stream) {
+            return transmitirEventos(req, trecho -> aiService.responderDuvidaStream(pergunta, contexto, trecho), resposta -> {
+                JsonObject fim = new JsonObject();
+                fim.addProperty("temContexto", true);
+                fim.addProperty("tipoContexto", "texto");
+                fim.addProperty("tamanhoContexto", contexto.length());
+                return fim;
+            });
+        }
+
+        return responderAssincrono(req, aiService.responderDuvidaAsync(pergunta, contexto), resposta -> {
+            JsonObject respostaJson = new JsonObject();
+            respostaJson.addProperty("resposta", resposta);
+            respostaJson.addProperty("temContexto", true);
+            respostaJson.addProperty("tipoContexto", "texto");
+            respostaJson.addProperty("tamanhoContexto", contexto.length());
+            return gson.toJson(respostaJson);
+        });
     }
 
     // 9. RESPONDER DÚVIDA COM CONTEXTO DE PDF
-    private String responderDuvidaComPDF(Request req, Response res) throws IOException, ServletException {
+    private String responderDuvidaComPDF(Request req, Response res, boolean stream) throws IOException, ServletException {
         res.type("application/json");
         
-        req.attribute("org.eclipse.jetty.multipartConfig", 
-            new MultipartConfigElement(
-                System.getProperty("java.io.tmpdir"),
-                MAX_FILE_SIZE,
-                MAX_FILE_SIZE,
-                1024 * 1024
-            ));
-        
-        Part perguntaPart = req.raw().getPart("pergunta");
-        if (perguntaPart == null) {
-            res.status(400);
-            return gson.toJson(criarErro("Campo 'pergunta' não fornecido"));
-        }
-        
-        Part pdfPart = req.raw().getPart("pdf");
-        if (pdfPart == null) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF não enviado"));
+        EntradaPDF entrada = lerEntradaPDF(req, res);
+        if (entrada.erro != null) {
+            return entrada.erro;
         }
         
-        if (!pdfPart.getContentType().equals("application/pdf")) {
+        String pergunta = entrada.campo("pergunta");
+        if (pergunta == null) {
             res.status(400);
-            return gson.toJson(criarErro("Arquivo deve ser um PDF"));
+            return gson.toJson(criarErro("Campo 'pergunta' não fornecido"));
         }
         
-        String pergunta = new String(perguntaPart.getInputStream().readAllBytes()).trim();
-        
         if (pergunta.isEmpty()) {
             res.status(400);
             return gson.toJson(criarErro("Pergunta não pode estar vazia"));
@@ -578,13 +621,9 @@ public class AIController {
                     MAX_PERGUNTA_LENGTH)));
         }
         
-        InputStream inputStream = pdfPart.getInputStream();
-        String contexto = pdfReader.extrairTextoDePDF(inputStream);
-        
-        if (contexto.trim().isEmpty()) {
-            res.status(400);
-            return gson.toJson(criarErro("PDF vazio ou sem texto extraível"));
-        }
+        // Só os trechos do PDF relevantes para a pergunta vão para o prompt
+        String contexto = aiService.contextoRelevante(entrada.documentoId, entrada.texto, pergunta);
+        int tamanhoDocumento = entrada.texto.length();
         
         if (contexto.length() > MAX_CONTEXTO_LENGTH) {
             res.status(400);
@@ -593,22 +632,489 @@ public class AIController {
                     MAX_CONTEXTO_LENGTH)));
         }
         
-        String resposta = aiService.responderDuvida(pergunta, contexto);
-        
-        JsonObject respostaJson = new JsonObject();
-        respostaJson.addProperty("resposta", resposta);
-        respostaJson.addProperty("temContexto", true);
-        respostaJson.addProperty("tipoContexto", "pdf");
-        respostaJson.addProperty("tamanhoContexto", contexto.length());
-        
-        res.status(200);
-        return gson.toJson(respostaJson);
+        if (stream) {
+            return transmitirEventos(req, trecho -> aiService.responderDuvidaStream(pergunta, contexto, trecho), resposta -> {
+                JsonObject fim = new JsonObject();
+                fim.addProperty("temContexto", true);
+                fim.addProperty("tipoContexto", "pdf");
+                fim.addProperty("tamanhoContexto", contexto.length());
+                fim.addProperty("tamanhoDocumento", tamanhoDocumento);
+                return fim;
+            });
+        }
+
+        return responderAssincrono(req, aiService.responderDuvidaAsync(pergunta, contexto), resposta -> {
+            JsonObject respostaJson = new JsonObject();
+            respostaJson.addProperty("resposta", resposta);
+            respostaJson.addProperty("temContexto", true);
+            respostaJson.addProperty("tipoContexto", "pdf");
+            respostaJson.addProperty("tamanhoContexto", contexto.length());
+            respostaJson.addProperty("tamanhoDocumento", tamanhoDocumento);
+            return gson.toJson(respostaJson);
+        });
+    }
+
+    // ========================================
+    // MÉTODOS DE PACOTE DE ESTUDO
+    // ========================================
+
+    // 12. CRIAR PACOTE DE ESTUDO
+    // Extrai o texto uma vez e dispara resumo, quiz e flashcards em paralelo
+    private String criarPacote(Request req, Response res, boolean stream) throws IOException, ServletException {
+        res.type("application/json");
+
+        String conteudo;
+        String fonte;
+        LeitorCampo campos;
+        String titulo = "Quiz";
+        int numeroQuestoes = 5;
+        int numeroCards = 10;
+
+        String contentType = req.contentType();
+        boolean multipart = contentType != null && contentType.startsWith("multipart/form-data");
+        JsonObject body = multipart ? null : gson.fromJson(req.body(), JsonObject.class);
+
+        // PDF enviado agora ou documentId: mesma entrada das rotas /pdf
+        if (multipart || (body != null && !body.has("conteudo") && body.has("documentId"))) {
+            EntradaPDF entrada = lerEntradaPDF(req, res);
+            if (entrada.erro != null) {
+                return entrada.erro;
+            }
+
+            conteudo = entrada.texto;
+            fonte = "pdf";
+            campos = entrada.campos;
+        } else {
+            if (body == null || !body.has("conteudo")) {
+                res.status(400);
+                return gson.toJson(criarErro("Campo 'conteudo' não fornecido"));
+            }
+
+            conteudo = body.get("conteudo").getAsString().trim();
+            fonte = "texto";
+            campos = nome -> body.has(nome) ? body.get(nome).getAsString().trim() : null;
+
+            if (conteudo.isEmpty()) {
+                res.status(400);
+                return gson.toJson(criarErro("Conteúdo não pode estar vazio"));
+            }
+
+            if (conteudo.length() > MAX_TEXTO_LENGTH) {
+                res.status(400);
+                return gson.toJson(criarErro(
+                    String.format("Conteúdo muito longo. Máximo: %d caracteres", MAX_TEXTO_LENGTH)));
+            }
+        }
+
+        try {
+            String tituloCampo = campos.ler("titulo");
+            if (tituloCampo != null) {
+                titulo = tituloCampo;
+            }
+
+            String numQuestoesCampo = campos.ler("numeroQuestoes");
+            if (numQuestoesCampo != null) {
+                numeroQuestoes = Integer.parseInt(numQuestoesCampo);
+            }
+
+            String numCardsCampo = campos.ler("numeroCards");
+            if (numCardsCampo != null) {
+                numeroCards = Integer.parseInt(numCardsCampo);
+            }
+        } catch (NumberFormatException e) {
+            res.status(400);
+            return gson.toJson(criarErro("Número de questões ou de flashcards inválido"));
+        }
+
+        if (titulo.isEmpty()) {
+            titulo = "Quiz";
+        }
+
+        if (numeroQuestoes < MIN_QUESTOES || numeroQuestoes > MAX_QUESTOES) {
+            res.status(400);
+            return gson.toJson(criarErro(
+                String.format("Número de questões deve estar entre %d e %d",
+                    MIN_QUESTOES, MAX_QUESTOES)));
+        }
+
+        if (numeroCards < MIN_FLASHCARDS || numeroCards > MAX_FLASHCARDS) {
+            res.status(400);
+            return gson.toJson(criarErro(
+                String.format("Número de flashcards deve estar entre %d e %d",
+                    MIN_FLASHCARDS, MAX_FLASHCARDS)));
+        }
+
+        Map<String, CompletableFuture<JsonElement>> partes = new LinkedHashMap<>();
+
+        CompletableFuture<String> resumo = aiService.resumirTextoAsync(conteudo);
+        partes.put("resumo", Futuros.vincularCancelamento(resumo.thenApply(texto -> {
+            JsonObject parte = new JsonObject();
+            parte.addProperty("resumo", texto);
+            parte.addProperty("tamanhoResumo", texto.length());
+            return parte;
+        }), resumo));
+
+        CompletableFuture<Quiz> quiz = aiService.criarQuizAsync(conteudo, titulo, numeroQuestoes, req.attribute("userId"));
+        partes.put("quiz", Futuros.vincularCancelamento(quiz.thenApply(gson::toJsonTree), quiz));
+
+        CompletableFuture<List<Flashcard>> flashcards = aiService.criarFlashcardsAsync(conteudo, numeroCards);
+        partes.put("flashcards", Futuros.vincularCancelamento(flashcards.thenApply(cards -> {
+            JsonObject parte = new JsonObject();
+            parte.add("flashcards", gson.toJsonTree(cards));
+            parte.addProperty("total", cards.size());
+            return parte;
+        }), flashcards));
+
+        JsonObject metadados = new JsonObject();
+        metadados.addProperty("tamanhoOriginal", conteudo.length());
+        metadados.addProperty("fonte", fonte);
+
+        if (stream) {
+            return transmitirPartes(req, partes, metadados);
+        }
+
+        CompletableFuture<JsonObject> pacote = CompletableFuture
+                .allOf(partes.values().stream()
+                        .map(parte -> parte.handle((valor, erro) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenApply(ignorado -> montarPacote(partes, metadados));
+        partes.values().forEach(parte -> Futuros.vincularCancelamento(pacote, parte));
+
+        return responderAssincrono(req, pacote, gson::toJson);
     }
 
-    private JsonObject criarErro(String mensagem) {
+    // Partes que falharam vão para "erros"; só falha por inteiro se nenhuma der certo
+    private JsonObject montarPacote(Map<String, CompletableFuture<JsonElement>> partes, JsonObject metadados) {
+        JsonObject resposta = new JsonObject();
+        JsonObject erros = new JsonObject();
+        Throwable primeiraFalha = null;
+
+        for (Map.Entry<String, CompletableFuture<JsonElement>> parte : partes.entrySet()) {
+            try {
+                resposta.add(parte.getKey(), parte.getValue().join());
+            } catch (CompletionException | CancellationException e) {
+                Throwable causa = Futuros.causaReal(e);
+                erros.addProperty(parte.getKey(), causa.getMessage());
+                if (primeiraFalha == null) {
+                    primeiraFalha = causa;
+                }
+            }
+        }
+
+        if (erros.size() == partes.size()) {
+            throw new CompletionException(primeiraFalha);
+        }
+
+        metadados.entrySet().forEach(campo -> resposta.add(campo.getKey(), campo.getValue()));
+        if (erros.size() > 0) {
+            resposta.add("erros", erros);
+        }
+        return resposta;
+    }
+
+    // Envia um evento com o nome de cada parte assim que ela termina, "erro"
+    // (com o campo "parte") para as que falharem e "fim" quando todas acabarem
+    private String transmitirPartes(Request req, Map<String, CompletableFuture<JsonElement>> partes,
+                                    JsonObject metadados) throws IOException {
+        AsyncContext contexto = req.raw().startAsync();
+        contexto.setTimeout(TIMEOUT_ASSINCRONO_MS);
+
+        EmissorSSE emissor = new EmissorSSE(contexto);
+        Runnable cancelarTodas = () -> partes.values().forEach(parte -> parte.cancel(true));
+
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                cancelarTodas.run();
+                emissor.finalizar("erro",
+                        gson.toJson(criarErro("Tempo limite excedido ao aguardar o serviço de IA")));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {}
+
+            @Override
+            public void onError(AsyncEvent event) {
+                cancelarTodas.run();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        AtomicInteger restantes = new AtomicInteger(partes.size());
+
+        partes.forEach((nome, parte) -> parte.whenComplete((valor, erro) -> {
+            boolean entregue;
+            if (erro == null) {
+                entregue = emissor.enviar(nome, gson.toJson(valor));
+            } else {
+                Throwable causa = Futuros.causaReal(erro);
+                JsonObject corpo = corpoDoErro(causa);
+                corpo.addProperty("parte", nome);
+                corpo.addProperty("status", statusDoErro(causa));
+                entregue = causa instanceof CancellationException || emissor.enviar("erro", gson.toJson(corpo));
+            }
+
+            if (!entregue) {
+                cancelarTodas.run();
+            }
+
+            if (restantes.decrementAndGet() == 0) {
+                emissor.finalizar("fim", gson.toJson(metadados));
+            }
+        }));
+
+        return "";
+    }
+
+    // ========================================
+    // RESPOSTA ASSÍNCRONA
+    // ========================================
+
+    // Libera a thread do Jetty enquanto a IA responde; o corpo é escrito
+    // pelo AsyncContext quando o futuro terminar.
+    private <T> String responderAssincrono(Request req, CompletableFuture<T> operacao, Function<T, String> serializar) {
+        AsyncContext contexto = req.raw().startAsync();
+        contexto.setTimeout(TIMEOUT_ASSINCRONO_MS);
+
+        AtomicBoolean finalizado = new AtomicBoolean(false);
+
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                operacao.cancel(true);
+                finalizarAssincrono(contexto, finalizado, 504,
+                        gson.toJson(criarErro("Tempo limite excedido ao aguardar o serviço de IA")));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {}
+
+            @Override
+            public void onError(AsyncEvent event) {
+                operacao.cancel(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        operacao.thenApply(serializar).whenComplete((json, erro) -> {
+            if (erro == null) {
+                finalizarAssincrono(contexto, finalizado, 200, json);
+                return;
+            }
+
+            Throwable causa = Futuros.causaReal(erro);
+            if (causa instanceof SobrecargaException sobrecarga) {
+                ((HttpServletResponse) contexto.getResponse())
+                        .setHeader("Retry-After", String.valueOf(sobrecarga.getRetryAfterSegundos()));
+            }
+            finalizarAssincrono(contexto, finalizado, statusDoErro(causa), gson.toJson(corpoDoErro(causa)));
+        });
+
+        return "";
+    }
+
+    // Repassa cada trecho gerado como um evento "trecho"; ao terminar envia "fim"
+    // com os metadados da resposta, ou "erro" se a operação falhar.
+    private String transmitirEventos(Request req, Function<Consumer<String>, CompletableFuture<String>> operacao,
+                                     Function<String, JsonObject> metadados) throws IOException {
+        return transmitirItens(req, "trecho", trecho -> {
+            JsonObject evento = new JsonObject();
+            evento.addProperty("texto", trecho);
+            return evento;
+        }, operacao, metadados);
+    }
+
+    // Envia cada item que a operação produzir como um evento nomeEvento e,
+    // ao terminar, "fim" com os metadados do resultado ou "erro" se falhar.
+    private <T, R> String transmitirItens(Request req, String nomeEvento, Function<T, JsonElement> serializarItem,
+                                          Function<Consumer<T>, CompletableFuture<R>> operacao,
+                                          Function<R, JsonObject> metadados) throws IOException {
+        AsyncContext contexto = req.raw().startAsync();
+        contexto.setTimeout(TIMEOUT_ASSINCRONO_MS);
+
+        EmissorSSE emissor = new EmissorSSE(contexto);
+
+        CompletableFuture<R> futuro = operacao.apply(item -> {
+            if (!emissor.enviar(nomeEvento, gson.toJson(serializarItem.apply(item)))) {
+                throw new CancellationException("Cliente desconectado");
+            }
+        });
+
+        contexto.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                futuro.cancel(true);
+                emissor.finalizar("erro",
+                        gson.toJson(criarErro("Tempo limite excedido ao aguardar o serviço de IA")));
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {}
+
+            @Override
+            public void onError(AsyncEvent event) {
+                futuro.cancel(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        futuro.whenComplete((resultado, erro) -> {
+            if (erro == null) {
+                emissor.finalizar("fim", gson.toJson(metadados.apply(resultado)));
+                return;
+            }
+
+            Throwable causa = Futuros.causaReal(erro);
+            if (causa instanceof CancellationException) {
+                emissor.finalizar();
+                return;
+            }
+
+            JsonObject corpo = corpoDoErro(causa);
+            corpo.addProperty("status", statusDoErro(causa));
+            emissor.finalizar("erro", gson.toJson(corpo));
+        });
+
+        return "";
+    }
+
+    private void finalizarAssincrono(AsyncContext contexto, AtomicBoolean finalizado, int status, String json) {
+        if (!finalizado.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            HttpServletResponse resposta = (HttpServletResponse) contexto.getResponse();
+            resposta.setStatus(status);
+            resposta.setContentType("application/json");
+            resposta.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Erro ao escrever resposta assíncrona: " + e.getMessage());
+        } finally {
+            contexto.complete();
+        }
+    }
+
+    private int statusDoErro(Throwable e) {
+        if (e instanceof IllegalArgumentException || e instanceof JsonSyntaxException) {
+            return 400;
+        }
+
+        if (e instanceof IOException) {
+            return 503;
+        }
+
+        return 500;
+    }
+
+    private JsonObject corpoDoErro(Throwable e) {
+        if (e instanceof JsonSyntaxException) {
+            return criarErro("JSON inválido: " + e.getMessage());
+        }
+
+        if (e instanceof IllegalArgumentException) {
+            return criarErro(e.getMessage());
+        }
+
+        if (e instanceof SobrecargaException sobrecarga) {
+            JsonObject erro = criarErro(e.getMessage());
+            erro.addProperty("retryAfter", sobrecarga.getRetryAfterSegundos());
+            return erro;
+        }
+
+        if (e instanceof IOException) {
+            return criarErro("Erro ao comunicar com serviço de IA: " + e.getMessage());
+        }
+
+        System.err.println("Erro interno: " + e.getMessage());
+        e.printStackTrace();
+
         JsonObject erro = new JsonObject();
-        erro.addProperty("erro", mensagem);
-        erro.addProperty("timestamp", System.currentTimeMillis());
+        erro.addProperty("erro", "Erro interno do servidor");
+        erro.addProperty("mensagem", e.getMessage());
         return erro;
     }
+
+    // ========================================
+    // ENTRADA DAS ROTAS DE PDF
+    // ========================================
+
+    // As rotas /pdf aceitam um upload multipart com o campo "pdf" ou um JSON
+    // com o documentId de um documento enviado antes a /api/documentos. Os
+    // outros campos (titulo, numeroQuestoes, pergunta...) vêm no mesmo formato.
+    private EntradaPDF lerEntradaPDF(Request req, Response res) throws IOException, ServletException {
+        String contentType = req.contentType();
+        if (contentType == null || !contentType.startsWith("multipart/form-data")) {
+            JsonObject body = gson.fromJson(req.body(), JsonObject.class);
+            if (body == null || !body.has("documentId")) {
+                res.status(400);
+                return EntradaPDF.comErro(gson.toJson(criarErro("Envie um PDF ou o campo 'documentId'")));
+            }
+
+            Documento documento = documentoService.buscar(req.attribute("userId"), body.get("documentId").getAsString());
+            if (documento == null) {
+                res.status(404);
+                return EntradaPDF.comErro(gson.toJson(criarErro("Documento não encontrado")));
+            }
+
+            return new EntradaPDF(documento.getTexto(), documento.getId(),
+                    nome -> body.has(nome) ? body.get(nome).getAsString().trim() : null);
+        }
+
+        UploadPDF upload = UploadPDF.receber(req);
+        if (upload.getErro() != null) {
+            res.status(400);
+            return EntradaPDF.comErro(gson.toJson(criarErro(upload.getErro())));
+        }
+
+        String texto = pdfReader.extrairTextoDePDF(upload.getArquivo().getInputStream());
+        if (texto.trim().isEmpty()) {
+            res.status(400);
+            return EntradaPDF.comErro(gson.toJson(criarErro("PDF vazio ou sem texto extraível")));
+        }
+
+        return new EntradaPDF(texto, null, nome -> {
+            Part parte = req.raw().getPart(nome);
+            return parte != null ? new String(parte.getInputStream().readAllBytes()).trim() : null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface LeitorCampo {
+        String ler(String nome) throws IOException, ServletException;
+    }
+
+    private static final class EntradaPDF {
+        private final String texto;
+        // null quando o PDF veio no upload
+        private final String documentoId;
+        private final LeitorCampo campos;
+        private final String erro;
+
+        private EntradaPDF(String texto, String documentoId, LeitorCampo campos) {
+            this(texto, documentoId, campos, null);
+        }
+
+        private EntradaPDF(String texto, String documentoId, LeitorCampo campos, String erro) {
+            this.texto = texto;
+            this.documentoId = documentoId;
+            this.campos = campos;
+            this.erro = erro;
+        }
+
+        private static EntradaPDF comErro(String erro) {
+            return new EntradaPDF(null, null, null, erro);
+        }
+
+        // null se o campo não foi enviado
+        private String campo(String nome) throws IOException, ServletException {
+            return campos.ler(nome);
+        }
+    }
 }
\ No newline at end of file
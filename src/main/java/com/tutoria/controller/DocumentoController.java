@@ -0,0 +1,93 @@
+package com.tutoria.controller;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Part;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.tutoria.model.Documento;
+import com.tutoria.service.DocumentoService;
+
+import spark.Request;
+import spark.Response;
+import static com.tutoria.controller.ErrosHttp.criarErro;
+import static spark.Spark.delete;
+import static spark.Spark.get;
+import static spark.Spark.post;
+
+public class DocumentoController {
+
+    private final DocumentoService documentoService;
+    private final Gson gson = new Gson();
+
+    public DocumentoController(DocumentoService documentoService) {
+        this.documentoService = documentoService;
+    }
+
+    public void configurarRotas() {
+
+        // POST /api/documentos - Envia um PDF uma vez e devolve o documentId usado pelas rotas de IA
+        post("/api/documentos", (req, res) -> enviarDocumento(req, res));
+
+        // GET /api/documentos/:id - Dados do documento (sem o texto)
+        get("/api/documentos/:id", (req, res) -> buscarDocumento(req, res));
+
+        // DELETE /api/documentos/:id - Remove o documento
+        delete("/api/documentos/:id", (req, res) -> removerDocumento(req, res));
+    }
+
+    private String enviarDocumento(Request req, Response res) throws IOException, ServletException {
+        res.type("application/json");
+
+        UploadPDF upload = UploadPDF.receber(req);
+        if (upload.getErro() != null) {
+            res.status(400);
+            return gson.toJson(criarErro(upload.getErro()));
+        }
+
+        Part filePart = upload.getArquivo();
+
+        String nome = filePart.getSubmittedFileName() != null ? filePart.getSubmittedFileName() : "documento.pdf";
+        Documento documento = documentoService.salvar(req.attribute("userId"), nome,
+                filePart.getInputStream(), filePart.getSize());
+
+        res.status(201);
+        return gson.toJson(dadosDocumento(documento));
+    }
+
+    private String buscarDocumento(Request req, Response res) {
+        res.type("application/json");
+
+        Documento documento = documentoService.buscar(req.attribute("userId"), req.params("id"));
+        if (documento == null) {
+            res.status(404);
+            return gson.toJson(criarErro("Documento não encontrado"));
+        }
+
+        return gson.toJson(dadosDocumento(documento));
+    }
+
+    private String removerDocumento(Request req, Response res) {
+        res.type("application/json");
+
+        if (!documentoService.remover(req.attribute("userId"), req.params("id"))) {
+            res.status(404);
+            return gson.toJson(criarErro("Documento não encontrado"));
+        }
+
+        res.status(204);
+        return "";
+    }
+
+    private JsonObject dadosDocumento(Documento documento) {
+        JsonObject dados = new JsonObject();
+        dados.addProperty("documentId", documento.getId());
+        dados.addProperty("nome", documento.getNome());
+        dados.addProperty("tamanhoBytes", documento.getTamanhoBytes());
+        dados.addProperty("caracteres", documento.getTexto().length());
+        dados.addProperty("criadoEm", documento.getCriadoEm());
+        return dados;
+    }
+}
@@ -0,0 +1,17 @@
+package com.tutoria.controller;
+
+import com.google.gson.JsonObject;
+
+// Corpo de erro das rotas da API, igual em todos os controllers
+final class ErrosHttp {
+
+    private ErrosHttp() {
+    }
+
+    static JsonObject criarErro(String mensagem) {
+        JsonObject erro = new JsonObject();
+        erro.addProperty("erro", mensagem);
+        erro.addProperty("timestamp", System.currentTimeMillis());
+        return erro;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tutoria.controller;
+
+import java.io.IOException;
+
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.ServletException;
+import javax.servlet.http.Part;
+
+import spark.Request;
+
+// Upload multipart do campo "pdf", validado do mesmo jeito em todas as rotas
+// que recebem PDF (as de IA e /api/documentos): limite de tamanho, presença
+// do arquivo e tipo.
+final class UploadPDF {
+
+    static final int MAX_FILE_SIZE = 25 * 1024 * 1024;
+
+    private static final String ERRO_TAMANHO = "Arquivo muito grande. Máximo: " + MAX_FILE_SIZE / (1024 * 1024) + "MB";
+
+    private final Part arquivo;
+    private final String erro;
+
+    private UploadPDF(Part arquivo, String erro) {
+        this.arquivo = arquivo;
+        this.erro = erro;
+    }
+
+    // Com getErro() != null, a rota responde 400 com a mensagem
+    static UploadPDF receber(Request req) throws IOException, ServletException {
+        req.attribute("org.eclipse.jetty.multipartConfig",
+            new MultipartConfigElement(
+                System.getProperty("java.io.tmpdir"),
+                MAX_FILE_SIZE,
+                MAX_FILE_SIZE,
+                1024 * 1024
+            ));
+
+        // O Jetty recusa partes acima do multipartConfig com IllegalStateException
+        Part arquivo;
+        try {
+            arquivo = req.raw().getPart("pdf");
+        } catch (IllegalStateException e) {
+            return new UploadPDF(null, ERRO_TAMANHO);
+        }
+
+        if (arquivo == null) {
+            return new UploadPDF(null, "PDF não enviado");
+        }
+
+        if (!"application/pdf".equals(arquivo.getContentType())) {
+            return new UploadPDF(null, "Arquivo deve ser um PDF");
+        }
+
+        if (arquivo.getSize() > MAX_FILE_SIZE) {
+            return new UploadPDF(null, ERRO_TAMANHO);
+        }
+
+        return new UploadPDF(arquivo, null);
+    }
+
+    Part getArquivo() {
+        return arquivo;
+    }
+
+    String getErro() {
+        return erro;
+    }
+}
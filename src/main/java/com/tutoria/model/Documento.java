@@ -0,0 +1,31 @@
+package com.tutoria.model;
+
+public class Documento {
+
+    private final String id;
+    private final Integer usuario;
+    private final String nome;
+    private final String texto;
+    private final long tamanhoBytes;
+    private final long criadoEm;
+
+    // CONSTRUTOR
+
+    public Documento(String id, Integer usuario, String nome, String texto, long tamanhoBytes, long criadoEm) {
+        this.id = id;
+        this.usuario = usuario;
+        this.nome = nome;
+        this.texto = texto;
+        this.tamanhoBytes = tamanhoBytes;
+        this.criadoEm = criadoEm;
+    }
+
+    // GETTERS
+
+    public String getId() { return id; }
+    public Integer getUsuario() { return usuario; }
+    public String getNome() { return nome; }
+    public String getTexto() { return texto; }
+    public long getTamanhoBytes() { return tamanhoBytes; }
+    public long getCriadoEm() { return criadoEm; }
+}
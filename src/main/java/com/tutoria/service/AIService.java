@@ -1,119 +1,551 @@
 package com.tutoria.service;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import com.tutoria.model.Flashcard;
 import com.tutoria.model.Quiz;
 import com.tutoria.model.QuestaoQuiz;
+import com.tutoria.util.ArmazemRespostas;
+import com.tutoria.util.CacheSemantico;
+import com.tutoria.util.CacheWTinyLFU;
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.DisjuntorCircuito;
+import com.tutoria.util.DivisorTexto;
+import com.tutoria.util.EmbeddingLocal;
+import com.tutoria.util.EsquemaJson;
+import com.tutoria.util.FiltroQuaseDuplicatas;
+import com.tutoria.util.FuncaoEmbedding;
+import com.tutoria.util.Futuros;
+import com.tutoria.util.Hash;
+import com.tutoria.util.Hedge;
+import com.tutoria.util.LeitorItensJson;
+import com.tutoria.util.LimitadorAdaptativo;
 import com.tutoria.util.PDFReader;
-import okhttp3.*;
+import com.tutoria.util.PoliticaRepeticao;
+import com.tutoria.util.SingleFlight;
+import com.tutoria.util.SobrecargaException;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class AIService {
 
-    private final String apiKey;
-    private final String apiUrl;
-    private final OkHttpClient client;
-    private final Gson gson;
+    private static final Set<OperacaoIA> OPERACOES_CACHEAVEIS =
+            EnumSet.of(OperacaoIA.RESUMO, OperacaoIA.QUIZ, OperacaoIA.FLASHCARDS);
+
+    private static final Set<OperacaoIA> OPERACOES_COM_HEDGE = EnumSet.of(OperacaoIA.QUIZ, OperacaoIA.FLASHCARDS);
+
+    private static final int MAX_NIVEIS_RESUMO = 3;
+
+    // Formato pedido ao modelo como responseSchema e usado para validar cada
+    // item. Os nomes seguem o JSON que o modelo gera (e que lerQuestao e
+    // lerFlashcard convertem em QuestaoQuiz e Flashcard).
+    private static final EsquemaJson ESQUEMA_QUESTAO = EsquemaJson.objeto(
+            "pergunta", EsquemaJson.texto(),
+            "opcoes", EsquemaJson.lista(EsquemaJson.texto(), 2, 6),
+            "resposta_correta", EsquemaJson.texto());
+
+    private static final EsquemaJson ESQUEMA_QUIZ = EsquemaJson.objeto(
+            "questoes", EsquemaJson.lista(ESQUEMA_QUESTAO));
+
+    private static final EsquemaJson ESQUEMA_FLASHCARD = EsquemaJson.objeto(
+            "frente", EsquemaJson.texto(),
+            "verso", EsquemaJson.texto());
+
+    private static final EsquemaJson ESQUEMA_FLASHCARDS = EsquemaJson.objeto(
+            "flashcards", EsquemaJson.lista(ESQUEMA_FLASHCARD));
+
+    private static final String SYSTEM_PROMPT_RESUMO = "Você é um assistente educacional especializado em criar resumos claros e organizados em formato Markdown. Sempre responda em português do Brasil.";
+
+    private static final String SYSTEM_PROMPT_QUIZ = "Você é um assistente educacional que cria questões de múltipla escolha em português do Brasil. " +
+            "Sempre responda APENAS com um JSON válido, sem texto adicional antes ou depois.";
+
+    private static final String SYSTEM_PROMPT_FLASHCARDS = "Você é um assistente educacional que cria flashcards para estudo em português do Brasil. " +
+            "Sempre responda APENAS com um JSON válido, sem texto adicional antes ou depois.";
+
+    private static final String SYSTEM_PROMPT_DUVIDA = "Você é um tutor educacional paciente e didático que responde em português do Brasil. " +
+            "Explique conceitos de forma clara, use exemplos quando apropriado, " +
+            "e formate suas respostas em Markdown para melhor legibilidade.";
+
+    private final ProvedorIA provedor;
+    private final RoteadorModelos roteador;
     private final PDFReader pdfReader;
+    private final CacheWTinyLFU<String, String> cacheRespostas;
+    private final ArmazemRespostas armazemRespostas;
+    private final long ttlArmazemMillis;
+    private final SingleFlight<String, RespostaIA> voosEmAndamento = new SingleFlight<>();
+    private final DisjuntorCircuito disjuntor;
+    private final LimitadorAdaptativo limitador;
+    private final PoliticaRepeticao repeticao;
+    // Um hedge por rota (operação/perfil): o percentil da pesada não se mistura
+    // com o da rápida
+    private final boolean hedgeHabilitado;
+    private final int percentilHedge;
+    private final int minAmostrasHedge;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+    private final int limiarResumoEmBlocos;
+    private final int tamanhoBlocoResumo;
+    private final int paralelismoResumo;
+    private final Map<OperacaoIA, EsquemaJson> esquemasResposta = new EnumMap<>(OperacaoIA.class);
+    private final AtomicLong respostasInvalidas = new AtomicLong();
+    private final int maxComplementos;
+    private final AtomicLong respostasTruncadas = new AtomicLong();
+    private final AtomicLong itensAproveitados = new AtomicLong();
+    private final AtomicLong chamadasComplemento = new AtomicLong();
+
+    // Respostas inteiras e em streaming passam pelo mesmo leitor incremental
+    private final TipoItens<QuestaoQuiz> itensQuiz = new TipoItens<>(OperacaoIA.QUIZ, SYSTEM_PROMPT_QUIZ, "quiz",
+            "questoes", ESQUEMA_QUESTAO, this::lerQuestao, QuestaoQuiz::getTextoPergunta);
+    private final TipoItens<Flashcard> itensFlashcards = new TipoItens<>(OperacaoIA.FLASHCARDS, SYSTEM_PROMPT_FLASHCARDS, "flashcards",
+            "flashcards", ESQUEMA_FLASHCARD, this::lerFlashcard, Flashcard::getFrentePergunta);
+    private final AtomicLong resumosEmBlocos = new AtomicLong();
+    private final AtomicLong blocosResumidos = new AtomicLong();
+
+    private final boolean quizParalelo;
+    private final int questoesPorChamada;
+    private final int maxChamadasQuiz;
+    private final int tamanhoMinimoFatia;
+    private final double similaridadeMaximaQuiz;
+    private final AtomicLong quizzesParalelos = new AtomicLong();
+    private final AtomicLong chamadasQuizParalelo = new AtomicLong();
+    private final AtomicLong duplicatasDescartadas = new AtomicLong();
+    private final AtomicLong questoesRepostas = new AtomicLong();
+
+    private final Map<String, BancoQuestoes> bancosQuestoes;
+    private final int fatorSobregeracao;
+    private final int minGeracaoBanco;
+    private final int maxQuestoesBanco;
+    private final AtomicLong quizzesDoBanco = new AtomicLong();
+    private final AtomicLong reabastecimentosBanco = new AtomicLong();
+    private final AtomicLong ciclosBanco = new AtomicLong();
+
+    private final CacheSemantico cacheSemantico;
+    private final RecuperadorTrechos recuperador;
 
     // ========== CONSTRUTOR ==========
 
     public AIService(String apiKey) {
-        this.apiKey = apiKey;
-        this.apiUrl = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.0-flash:generateContent?key=" + apiKey;
+        this(new ProvedorGemini(apiKey), criarEmbedding(apiKey));
+    }
 
-        this.client = new OkHttpClient.Builder()
-                .connectTimeout(60, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+    public AIService(ProvedorIA provedor) {
+        this(provedor, new EmbeddingLocal(256));
+    }
 
-        this.gson = new Gson();
+    public AIService(ProvedorIA provedor, FuncaoEmbedding embedding) {
+        this.provedor = provedor;
+        this.roteador = new RoteadorModelos();
         this.pdfReader = new PDFReader();
+
+        this.cacheRespostas = ConfigLoader.getBooleanProperty("ai.cache.habilitado", true)
+                ? new CacheWTinyLFU<>(
+                        ConfigLoader.getIntProperty("ai.cache.max.entradas", 10_000),
+                        ConfigLoader.getLongProperty("ai.cache.max.caracteres", 50_000_000L),
+                        TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("ai.cache.ttl.segundos", 6 * 60 * 60)),
+                        String::length)
+                : null;
+
+        this.disjuntor = new DisjuntorCircuito(
+                ConfigLoader.getIntProperty("ai.circuito.janela", 20),
+                ConfigLoader.getIntProperty("ai.circuito.min.chamadas", 10),
+                ConfigLoader.getIntProperty("ai.circuito.taxa.falhas", 50),
+                ConfigLoader.getLongProperty("ai.circuito.aberto.ms", 30_000),
+                ConfigLoader.getIntProperty("ai.circuito.sondas", 3));
+
+        this.limitador = new LimitadorAdaptativo(
+                ConfigLoader.getIntProperty("ai.limite.inicial", 20),
+                ConfigLoader.getIntProperty("ai.limite.minimo", 2),
+                ConfigLoader.getIntProperty("ai.limite.maximo", 200),
+                ConfigLoader.getIntProperty("ai.limite.fila", 100),
+                ConfigLoader.getLongProperty("ai.limite.espera.ms", 2_000),
+                0.9,
+                ConfigLoader.getIntProperty("ai.limite.latencia.maxima.percentual", 50) / 100.0);
+
+        this.repeticao = new PoliticaRepeticao(
+                ConfigLoader.getIntProperty("ai.repeticao.max.tentativas", 3),
+                ConfigLoader.getLongProperty("ai.repeticao.base.ms", 200),
+                ConfigLoader.getLongProperty("ai.repeticao.teto.ms", 5_000),
+                0.2,
+                ConfigLoader.getIntProperty("ai.repeticao.orcamento.max", 20));
+
+        this.hedgeHabilitado = ConfigLoader.getBooleanProperty("ai.hedge.habilitado", false);
+        this.percentilHedge = ConfigLoader.getIntProperty("ai.hedge.percentil", 95);
+        this.minAmostrasHedge = ConfigLoader.getIntProperty("ai.hedge.min.amostras", 20);
+
+        if (ConfigLoader.getBooleanProperty("ai.saida.estruturada.habilitada", true)) {
+            esquemasResposta.put(OperacaoIA.QUIZ, ESQUEMA_QUIZ);
+            esquemasResposta.put(OperacaoIA.FLASHCARDS, ESQUEMA_FLASHCARDS);
+        }
+
+        this.maxComplementos = ConfigLoader.getIntProperty("ai.truncamento.max.complementos", 2);
+
+        this.quizParalelo = ConfigLoader.getBooleanProperty("ai.quiz.paralelo.habilitado", true);
+        this.questoesPorChamada = Math.max(1, ConfigLoader.getIntProperty("ai.quiz.paralelo.questoes.por.chamada", 5));
+        this.maxChamadasQuiz = ConfigLoader.getIntProperty("ai.quiz.paralelo.max.chamadas", 6);
+        this.tamanhoMinimoFatia = ConfigLoader.getIntProperty("ai.quiz.paralelo.fatia.min.caracteres", 2_000);
+        this.similaridadeMaximaQuiz = ConfigLoader.getIntProperty("ai.quiz.paralelo.similaridade.percentual", 70) / 100.0;
+
+        this.fatorSobregeracao = Math.max(1, ConfigLoader.getIntProperty("ai.quiz.banco.fator.sobregeracao", 3));
+        this.minGeracaoBanco = ConfigLoader.getIntProperty("ai.quiz.banco.min.geracao", 15);
+        this.maxQuestoesBanco = ConfigLoader.getIntProperty("ai.quiz.banco.max.questoes", 100);
+        this.bancosQuestoes = ConfigLoader.getBooleanProperty("ai.quiz.banco.habilitado", true)
+                ? criarMapaBancos(ConfigLoader.getIntProperty("ai.quiz.banco.max.documentos", 500))
+                : null;
+
+        this.limiarResumoEmBlocos = ConfigLoader.getIntProperty("ai.resumo.blocos.limiar.caracteres", 60_000);
+        this.tamanhoBlocoResumo = ConfigLoader.getIntProperty("ai.resumo.blocos.tamanho.caracteres", 30_000);
+        this.paralelismoResumo = ConfigLoader.getIntProperty("ai.resumo.blocos.paralelismo", 8);
+
+        this.cacheSemantico = ConfigLoader.getBooleanProperty("ai.semantico.habilitado", true)
+                ? new CacheSemantico(embedding,
+                        ConfigLoader.getIntProperty("ai.semantico.similaridade.percentual", 90) / 100.0,
+                        ConfigLoader.getIntProperty("ai.semantico.max.entradas", 20_000),
+                        TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("ai.semantico.ttl.segundos", 6 * 60 * 60)))
+                : null;
+
+        this.recuperador = new RecuperadorTrechos();
+
+        this.ttlArmazemMillis = TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("ai.armazem.ttl.segundos", 7 * 24 * 60 * 60));
+        this.armazemRespostas = ConfigLoader.getBooleanProperty("ai.armazem.habilitado", true)
+                ? abrirArmazem()
+                : null;
+    }
+
+    // ai.semantico.embedding=gemini usa o embedContent; qualquer outro valor, o local
+    private static FuncaoEmbedding criarEmbedding(String apiKey) {
+        if ("gemini".equalsIgnoreCase(ConfigLoader.getProperty("ai.semantico.embedding", "local"))) {
+            return new EmbeddingGemini(apiKey);
+        }
+        return new EmbeddingLocal(256);
+    }
+
+    // LRU por documento: o banco menos usado sai quando passa do limite
+    private static Map<String, BancoQuestoes> criarMapaBancos(int maxDocumentos) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BancoQuestoes> maisAntigo) {
+                return size() > maxDocumentos;
+            }
+        };
+    }
+
+    private ArmazemRespostas abrirArmazem() {
+        Path diretorio = Path.of(ConfigLoader.getProperty("ai.armazem.diretorio", "dados/cache-ia"));
+
+        try {
+            ArmazemRespostas armazem = new ArmazemRespostas(diretorio,
+                    ConfigLoader.getLongProperty("ai.armazem.max.bytes", 512L * 1024 * 1024), 0.5);
+            System.out.println("💾 Armazém de respostas carregado: " + armazem.tamanho() + " entradas em " + diretorio.toAbsolutePath());
+            return armazem;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("⚠️ Armazém de respostas desativado: " + e.getMessage());
+            return null;
+        }
     }
 
     // ========== CHAMADA CENTRAL À IA ==========
 
-    private String chamarIA(String prompt, String systemPrompt) throws IOException {
-        JsonObject requestBody = new JsonObject();
+    // O texto bruto só entra no cache depois que o conversor aceita a resposta,
+    // assim um JSON malformado não é servido de novo para os próximos usuários.
+    // itens é a quantidade pedida (questões, flashcards) ou 0; junto com o
+    // tamanho do prompt decide o perfil de modelo da chamada.
+    private <T> CompletableFuture<T> chamarIAAsync(OperacaoIA operacao, int itens, Prompt prompt, String systemPrompt,
+                                                   Function<RespostaIA, T> conversor) {
+        PerfilModelo perfil = roteador.escolher(operacao, prompt.comprimento(), itens);
+        String chave = chaveRequisicao(perfil, prompt, systemPrompt);
+        boolean cacheavel = (cacheRespostas != null || armazemRespostas != null) && OPERACOES_CACHEAVEIS.contains(operacao);
+
+        if (cacheavel) {
+            String emCache = buscarResposta(chave);
+            if (emCache != null) {
+                try {
+                    return CompletableFuture.completedFuture(conversor.apply(new RespostaIA(emCache, null)));
+                } catch (RuntimeException e) {
+                    invalidarResposta(chave);
+                }
+            }
+        }
 
-        JsonObject generationConfig = new JsonObject();
-        generationConfig.addProperty("temperature", 0.7);
-        generationConfig.addProperty("maxOutputTokens", 4096);
-        requestBody.add("generationConfig", generationConfig);
+        // Requisições idênticas simultâneas compartilham a mesma chamada ao Gemini.
+        // A validação e a gravação no cache acontecem uma vez só, dentro do voo.
+        CompletableFuture<RespostaIA> assinatura = voosEmAndamento.executar(chave, () ->
+                enviarAsync(operacao, perfil, prompt, systemPrompt).thenApply(resposta -> {
+                    converterContando(conversor, resposta);
+                    if (cacheavel) {
+                        guardarResposta(chave, resposta.getTexto());
+                    }
+                    return resposta;
+                }));
+
+        return Futuros.vincularCancelamento(assinatura.thenApply(conversor), assinatura);
+    }
 
-        JsonArray safetySettings = new JsonArray();
-        String[] categories = {
-                "HARM_CATEGORY_HARASSMENT",
-                "HARM_CATEGORY_HATE_SPEECH",
-                "HARM_CATEGORY_SEXUALLY_EXPLICIT",
-                "HARM_CATEGORY_DANGEROUS_CONTENT"
-        };
+    // Respostas que o conversor recusou (JSON malformado ou fora do esquema)
+    private <T> T converterContando(Function<RespostaIA, T> conversor, RespostaIA resposta) {
+        try {
+            return conversor.apply(resposta);
+        } catch (RuntimeException e) {
+            respostasInvalidas.incrementAndGet();
+            throw e;
+        }
+    }
 
-        for (String category : categories) {
-            JsonObject setting = new JsonObject();
-            setting.addProperty("category", category);
-            setting.addProperty("threshold", "BLOCK_ONLY_HIGH");
-            safetySettings.add(setting);
+    // ========== CACHE DE RESPOSTAS (MEMÓRIA + DISCO) ==========
+
+    private String buscarResposta(String chave) {
+        String texto = cacheRespostas != null ? cacheRespostas.buscar(chave) : null;
+
+        if (texto == null && armazemRespostas != null) {
+            texto = armazemRespostas.buscar(chave);
+            if (texto != null && cacheRespostas != null) {
+                cacheRespostas.guardar(chave, texto);
+            }
         }
 
-        requestBody.add("safetySettings", safetySettings);
+        return texto;
+    }
+
+    private void guardarResposta(String chave, String texto) {
+        if (cacheRespostas != null) {
+            cacheRespostas.guardar(chave, texto);
+        }
+
+        if (armazemRespostas != null) {
+            try {
+                armazemRespostas.guardar(chave, texto, ttlArmazemMillis);
+            } catch (IOException e) {
+                System.err.println("⚠️ Erro ao gravar resposta no armazém: " + e.getMessage());
+            }
+        }
+    }
 
-        JsonArray contents = new JsonArray();
-        JsonObject content = new JsonObject();
-        content.addProperty("role", "user");
+    private void invalidarResposta(String chave) {
+        if (cacheRespostas != null) {
+            cacheRespostas.invalidar(chave);
+        }
 
-        String fullPrompt = (systemPrompt != null && !systemPrompt.isEmpty()) 
-                ? systemPrompt + "\n\n" + prompt 
-                : prompt;
+        if (armazemRespostas != null) {
+            try {
+                armazemRespostas.remover(chave);
+            } catch (IOException e) {
+                System.err.println("⚠️ Erro ao remover resposta do armazém: " + e.getMessage());
+            }
+        }
+    }
 
-        JsonArray parts = new JsonArray();
-        JsonObject textPart = new JsonObject();
-        textPart.addProperty("text", fullPrompt);
-        parts.add(textPart);
-        content.add("parts", parts);
-        contents.add(content);
-        requestBody.add("contents", contents);
+    // O prompt normalizado entra por último no digest, direto dos pedaços,
+    // sem montar uma cópia normalizada do documento
+    private String chaveRequisicao(PerfilModelo perfil, Prompt prompt, String systemPrompt) {
+        MessageDigest digest = Hash.novoDigest();
+        digest.update(Hash.sha256(provedor.assinatura(), perfil.assinatura(), systemPrompt).getBytes(StandardCharsets.US_ASCII));
+        prompt.atualizarDigestNormalizado(digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
-        RequestBody body = RequestBody.create(
-                requestBody.toString(),
-                MediaType.parse("application/json")
-        );
+    // ========== DISJUNTOR E LIMITE DE CONCORRÊNCIA ==========
 
-        Request request = new Request.Builder()
-                .url(apiUrl)
-                .header("content-type", "application/json")
-                .post(body)
-                .build();
+    // Com o circuito aberto a chamada falha antes de entrar na fila do limitador.
+    private CompletableFuture<RespostaIA> protegido(boolean streaming, PerfilModelo perfil,
+                                                    Supplier<CompletableFuture<RespostaIA>> chamada) {
+        return disjuntor.executar(() -> comLimite(streaming, perfil, chamada), this::falhaTransitoria);
+    }
 
-        try (Response response = client.newCall(request).execute()) {
-            if (!response.isSuccessful()) {
-                String errorBody = response.body() != null ? response.body().string() : "Sem detalhes";
-                throw new IOException("Erro na API Gemini: " + response.code() + " - " + response.message() + "\nDetalhes: " + errorBody);
+    // Falhas que vale repetir e que contam contra o circuito. Erros 4xx (exceto
+    // 408/429) indicam requisição ruim, não serviço fora do ar; recusas locais
+    // do limitador ou do próprio disjuntor também não contam.
+    private boolean falhaTransitoria(Throwable erro) {
+        if (erro instanceof SobrecargaException) {
+            return false;
+        }
+
+        if (erro instanceof ErroAPIGeminiException api) {
+            return api.isTransitorio();
+        }
+
+        return erro instanceof IOException;
+    }
+
+    // Toda chamada real ao Gemini passa por aqui; acertos de cache não ocupam vaga.
+    // No streaming a duração reflete o tamanho da resposta, não a saúde do
+    // serviço, então um stream bem-sucedido libera a vaga sem ajustar o limite.
+    // A latência que conta como sobrecarga é medida contra o timeout do perfil.
+    private CompletableFuture<RespostaIA> comLimite(boolean streaming, PerfilModelo perfil,
+                                                    Supplier<CompletableFuture<RespostaIA>> chamada) {
+        return Futuros.encadear(limitador.adquirir(), permissao -> {
+            long inicio = System.nanoTime();
+            CompletableFuture<RespostaIA> futuro;
+            try {
+                futuro = chamada.get();
+            } catch (RuntimeException e) {
+                permissao.ignorar();
+                throw e;
             }
 
-            String responseBody = response.body().string();
-            JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+            CompletableFuture<RespostaIA> liberado = futuro.whenComplete((resposta, erro) -> {
+                if (erro == null) {
+                    if (streaming) {
+                        permissao.ignorar();
+                    } else {
+                        permissao.sucesso(System.nanoTime() - inicio, TimeUnit.MILLISECONDS.toNanos(perfil.getTimeoutMillis()));
+                    }
+                } else if (indicaSobrecarga(Futuros.causaReal(erro))) {
+                    permissao.sobrecarga();
+                } else {
+                    permissao.ignorar();
+                }
+            });
+            return Futuros.vincularCancelamento(liberado, futuro);
+        });
+    }
+
+    private boolean indicaSobrecarga(Throwable erro) {
+        if (erro instanceof ErroAPIGeminiException api) {
+            return api.isSobrecarga();
+        }
+        return erro instanceof InterruptedIOException;
+    }
+
+    // ========== REPETIÇÃO E HEDGING ==========
+
+    // Ordem das camadas: repetição > hedge > disjuntor > limite > HTTP. Cada
+    // tentativa (inclusive o hedge) ocupa sua própria vaga no limitador.
+    private CompletableFuture<RespostaIA> enviarAsync(OperacaoIA operacao, PerfilModelo perfil, Prompt prompt, String systemPrompt) {
+        EsquemaJson esquema = esquemasResposta.get(operacao);
+        Supplier<CompletableFuture<RespostaIA>> tentativa = () -> protegido(false, perfil,
+                () -> medirRota(operacao, perfil, () -> provedor.gerarAsync(prompt, systemPrompt, esquema, perfil)));
+
+        Hedge hedge = hedgeHabilitado && OPERACOES_COM_HEDGE.contains(operacao)
+                ? hedges.computeIfAbsent(operacao.name().toLowerCase() + "/" + perfil.getNome(),
+                        rota -> new Hedge(256, percentilHedge, minAmostrasHedge))
+                : null;
+        Supplier<CompletableFuture<RespostaIA>> comHedge = hedge == null
+                ? tentativa
+                : () -> hedge.executar(tentativa, repeticao::gastarFicha);
+
+        return repeticao.executar(comHedge, this::falhaTransitoria, this::esperaSugerida);
+    }
+
+    private long esperaSugerida(Throwable erro) {
+        return erro instanceof ErroAPIGeminiException api ? api.getRetryAfterMillis() : 0;
+    }
 
-            JsonArray candidates = jsonResponse.getAsJsonArray("candidates");
-            if (candidates != null && candidates.size() > 0) {
-                JsonObject candidate = candidates.get(0).getAsJsonObject();
-                JsonObject contentObj = candidate.getAsJsonObject("content");
-                JsonArray partsArray = contentObj.getAsJsonArray("parts");
-                if (partsArray != null && partsArray.size() > 0) {
-                    return partsArray.get(0).getAsJsonObject().get("text").getAsString();
+    // Latência de cada tentativa por rota (operação/perfil). Tentativas
+    // canceladas, como o perdedor de um hedge, não contam.
+    private CompletableFuture<RespostaIA> medirRota(OperacaoIA operacao, PerfilModelo perfil,
+                                                    Supplier<CompletableFuture<RespostaIA>> chamada) {
+        long inicio = System.nanoTime();
+        CompletableFuture<RespostaIA> futuro = chamada.get();
+        CompletableFuture<RespostaIA> medido = futuro.whenComplete((resposta, erro) -> {
+            if (!futuro.isCancelled()) {
+                roteador.registrar(operacao, perfil, System.nanoTime() - inicio, erro == null);
+            }
+        });
+        return Futuros.vincularCancelamento(medido, futuro);
+    }
+
+    // ========== CHAMADA EM STREAMING ==========
+
+    // Repassa cada trecho gerado a aoReceberTrecho assim que chega e completa
+    // com o texto inteiro convertido. Um acerto no cache é entregue como um
+    // único trecho. Como em chamarIAAsync, só vai para o cache o que o
+    // conversor aceitar.
+    private <T> CompletableFuture<T> chamarIAStream(OperacaoIA operacao, int itens, Prompt prompt, String systemPrompt,
+                                                    Consumer<String> aoReceberTrecho, Function<RespostaIA, T> conversor) {
+        PerfilModelo perfil = roteador.escolher(operacao, prompt.comprimento(), itens);
+        String chave = chaveRequisicao(perfil, prompt, systemPrompt);
+        boolean cacheavel = (cacheRespostas != null || armazemRespostas != null) && OPERACOES_CACHEAVEIS.contains(operacao);
+
+        if (cacheavel) {
+            String emCache = buscarResposta(chave);
+            if (emCache != null) {
+                // Só sai do cache o texto recusado (item fora do esquema ou o
+                // conversor); uma falha de quem recebe os trechos, como o
+                // cliente que desconectou, não diz nada sobre a resposta
+                try {
+                    aoReceberTrecho.accept(emCache);
+                } catch (JsonParseException e) {
+                    invalidarResposta(chave);
+                    return CompletableFuture.failedFuture(e);
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+
+                try {
+                    return CompletableFuture.completedFuture(conversor.apply(new RespostaIA(emCache, null)));
+                } catch (RuntimeException e) {
+                    invalidarResposta(chave);
+                    return CompletableFuture.failedFuture(e);
                 }
             }
+        }
+
+        CompletableFuture<RespostaIA> futuro = enviarStreamAsync(operacao, perfil, prompt, systemPrompt, aoReceberTrecho);
+        return Futuros.vincularCancelamento(futuro.thenApply(resposta -> {
+            T convertido = converterContando(conversor, resposta);
+            if (cacheavel) {
+                guardarResposta(chave, resposta.getTexto());
+            }
+            return convertido;
+        }), futuro);
+    }
+
+    // Um stream só é repetido se falhar antes do primeiro trecho; depois disso
+    // o cliente já recebeu parte do texto e repetir duplicaria a resposta.
+    private CompletableFuture<RespostaIA> enviarStreamAsync(OperacaoIA operacao, PerfilModelo perfil, Prompt prompt,
+                                                            String systemPrompt, Consumer<String> aoReceberTrecho) {
+        EsquemaJson esquema = esquemasResposta.get(operacao);
+        AtomicBoolean emitiu = new AtomicBoolean(false);
+        Consumer<String> marcarEmissao = trecho -> {
+            emitiu.set(true);
+            aoReceberTrecho.accept(trecho);
+        };
+
+        return repeticao.executar(
+                () -> protegido(true, perfil, () -> medirRota(operacao, perfil,
+                        () -> provedor.gerarStreamAsync(prompt, systemPrompt, esquema, perfil, marcarEmissao))),
+                erro -> !emitiu.get() && falhaTransitoria(erro),
+                this::esperaSugerida);
+    }
+
+    private <T> T aguardar(CompletableFuture<T> futuro) throws IOException {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = Futuros.causaReal(e);
+
+            if (causa instanceof IOException io) {
+                throw io;
+            }
 
-            throw new IOException("Resposta inválida da API Gemini");
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+
+            throw new IOException(causa);
         }
     }
 
@@ -122,18 +554,96 @@ public class AIService {
     // =======================
 
     public String resumirTexto(String textoCompleto) throws IOException {
-        String systemPrompt = "Você é um assistente educacional especializado em criar resumos claros e organizados em formato Markdown. Sempre responda em português do Brasil.";
+        return aguardar(resumirTextoAsync(textoCompleto));
+    }
+
+    public CompletableFuture<String> resumirTextoAsync(String textoCompleto) {
+        if (textoCompleto.length() <= limiarResumoEmBlocos) {
+            return chamarIAAsync(OperacaoIA.RESUMO, 0, promptResumo(textoCompleto), SYSTEM_PROMPT_RESUMO, RespostaIA::getTexto);
+        }
+
+        return Futuros.encadear(resumirBlocosAsync(textoCompleto), parciais ->
+                chamarIAAsync(OperacaoIA.RESUMO, 0, promptReducao(parciais), SYSTEM_PROMPT_RESUMO, RespostaIA::getTexto));
+    }
+
+    // Em textos longos só a etapa de redução é transmitida; os resumos parciais
+    // são gerados antes, em paralelo.
+    public CompletableFuture<String> resumirTextoStream(String textoCompleto, Consumer<String> aoReceberTrecho) {
+        if (textoCompleto.length() <= limiarResumoEmBlocos) {
+            return chamarIAStream(OperacaoIA.RESUMO, 0, promptResumo(textoCompleto), SYSTEM_PROMPT_RESUMO, aoReceberTrecho, RespostaIA::getTexto);
+        }
+
+        return Futuros.encadear(resumirBlocosAsync(textoCompleto), parciais ->
+                chamarIAStream(OperacaoIA.RESUMO, 0, promptReducao(parciais), SYSTEM_PROMPT_RESUMO, aoReceberTrecho, RespostaIA::getTexto));
+    }
+
+    // ========== RESUMO EM BLOCOS (MAP-REDUCE) ==========
+
+    // Divide o texto em blocos, resume cada um com no máximo paralelismoResumo
+    // chamadas simultâneas e devolve os resumos parciais já concatenados.
+    // Se a concatenação ainda passar do limiar, repete o processo sobre ela.
+    private CompletableFuture<List<String>> resumirBlocosAsync(String texto) {
+        resumosEmBlocos.incrementAndGet();
+        return resumirBlocosAsync(texto, 1);
+    }
+
+    private CompletableFuture<List<String>> resumirBlocosAsync(String texto, int nivel) {
+        List<String> blocos = DivisorTexto.dividir(texto, tamanhoBlocoResumo);
+
+        List<Supplier<CompletableFuture<String>>> tarefas = new ArrayList<>();
+        for (String bloco : blocos) {
+            tarefas.add(() -> chamarIAAsync(OperacaoIA.RESUMO, 0, promptResumoParcial(bloco), SYSTEM_PROMPT_RESUMO, RespostaIA::getTexto));
+        }
+        blocosResumidos.addAndGet(blocos.size());
+
+        return Futuros.encadear(Futuros.executarComLimite(tarefas, paralelismoResumo), parciais -> {
+            int tamanhoTotal = parciais.stream().mapToInt(String::length).sum();
+            if (tamanhoTotal <= limiarResumoEmBlocos || nivel >= MAX_NIVEIS_RESUMO || parciais.size() <= 1) {
+                return CompletableFuture.completedFuture(parciais);
+            }
+            return resumirBlocosAsync(String.join("\n\n", parciais), nivel + 1);
+        });
+    }
+
+    private Prompt promptResumoParcial(String bloco) {
+        return Prompt.de(
+                "O texto abaixo é um trecho de um documento maior. Resuma-o em Markdown, " +
+                        "preservando os conceitos, definições, fórmulas e exemplos importantes " +
+                        "e mantendo os títulos de seção que aparecerem. Não escreva introdução nem conclusão.\n\n" +
+                        "TRECHO:\n",
+                bloco,
+                "\n\nRESUMO DO TRECHO EM MARKDOWN:"
+        );
+    }
+
+    private Prompt promptReducao(List<String> parciais) {
+        List<String> partes = new ArrayList<>();
+        partes.add("Os resumos abaixo cobrem, em ordem, as partes consecutivas de um mesmo documento. " +
+                "Combine-os em um único resumo estruturado e didático em formato Markdown, " +
+                "eliminando repetições entre as partes. " +
+                "Use títulos (##), subtítulos (###), listas e destaques em negrito quando apropriado. " +
+                "Organize o conteúdo de forma lógica e fácil de estudar.\n\n" +
+                "RESUMOS DAS PARTES:\n");
+
+        for (int i = 0; i < parciais.size(); i++) {
+            partes.add("### Parte " + (i + 1) + "\n");
+            partes.add(parciais.get(i));
+            partes.add("\n\n");
+        }
+
+        partes.add("RESUMO EM MARKDOWN:");
+        return Prompt.de(partes.toArray(new String[0]));
+    }
 
-        String prompt = String.format(
+    private Prompt promptResumo(String textoCompleto) {
+        return Prompt.de(
                 "Crie um resumo estruturado e didático do seguinte texto em formato Markdown. " +
                         "Use títulos (##), subtítulos (###), listas e destaques em negrito quando apropriado. " +
                         "Organize o conteúdo de forma lógica e fácil de estudar.\n\n" +
-                        "TEXTO:\n%s\n\n" +
-                        "RESUMO EM MARKDOWN:",
-                textoCompleto
+                        "TEXTO:\n",
+                textoCompleto,
+                "\n\nRESUMO EM MARKDOWN:"
         );
-
-        return chamarIA(prompt, systemPrompt);
     }
 
     public String resumirPDF(InputStream pdfStream) throws IOException {
@@ -151,11 +661,77 @@ public class AIService {
     // =======================
 
     public Quiz criarQuiz(String conteudo, String titulo, int numeroQuestoes) throws IOException {
-        String systemPrompt = "Você é um assistente educacional que cria questões de múltipla escolha em português do Brasil. " +
-                "Sempre responda APENAS com um JSON válido, sem texto adicional antes ou depois.";
+        return aguardar(criarQuizAsync(conteudo, titulo, numeroQuestoes));
+    }
+
+    public CompletableFuture<Quiz> criarQuizAsync(String conteudo, String titulo, int numeroQuestoes) {
+        return gerarQuestoesAsync(conteudo, numeroQuestoes, List.of(), null)
+                .thenApply(questoes -> montarQuiz(titulo, questoes));
+    }
+
+    // Entrega cada questão a aoCompletarQuestao assim que o objeto dela fecha
+    // na resposta em streaming; completa com o quiz inteiro.
+    public CompletableFuture<Quiz> criarQuizStream(String conteudo, String titulo, int numeroQuestoes,
+                                                   Consumer<QuestaoQuiz> aoCompletarQuestao) {
+        return gerarQuestoesAsync(conteudo, numeroQuestoes, List.of(), aoCompletarQuestao)
+                .thenApply(questoes -> montarQuiz(titulo, questoes));
+    }
+
+    // Com usuario, as questões saem do banco do documento e só há chamada ao
+    // Gemini quando o banco não tem questões novas para esse usuário
+    public CompletableFuture<Quiz> criarQuizAsync(String conteudo, String titulo, int numeroQuestoes, Integer usuario) {
+        if (usuario == null || bancosQuestoes == null) {
+            return criarQuizAsync(conteudo, titulo, numeroQuestoes);
+        }
+
+        return questoesDoBancoAsync(conteudo, numeroQuestoes, usuario, null)
+                .thenApply(questoes -> montarQuiz(titulo, questoes));
+    }
+
+    public CompletableFuture<Quiz> criarQuizStream(String conteudo, String titulo, int numeroQuestoes, Integer usuario,
+                                                   Consumer<QuestaoQuiz> aoCompletarQuestao) {
+        if (usuario == null || bancosQuestoes == null) {
+            return criarQuizStream(conteudo, titulo, numeroQuestoes, aoCompletarQuestao);
+        }
+
+        return questoesDoBancoAsync(conteudo, numeroQuestoes, usuario, aoCompletarQuestao)
+                .thenApply(questoes -> montarQuiz(titulo, questoes));
+    }
+
+    // evitar lista perguntas que já existem (como as do banco de questões);
+    // vazia, os prompts e as chaves do cache são os de sempre
+    private CompletableFuture<List<QuestaoQuiz>> gerarQuestoesAsync(String conteudo, int numeroQuestoes, List<String> evitar,
+                                                                    Consumer<QuestaoQuiz> aoCompletarQuestao) {
+        List<String> fatias = fatiarParaQuiz(conteudo, numeroQuestoes);
+        if (fatias.size() > 1) {
+            return gerarQuestoesParaleloAsync(fatias, numeroQuestoes, evitar, aoCompletarQuestao);
+        }
+
+        return gerarItensAsync(itensQuiz, (quantidade, existentes) -> promptQuiz(conteudo, quantidade, juntar(evitar, existentes)),
+                numeroQuestoes, aoCompletarQuestao);
+    }
+
+    private static List<String> juntar(List<String> primeiros, List<String> segundos) {
+        if (primeiros.isEmpty()) {
+            return segundos;
+        }
+
+        List<String> todos = new ArrayList<>(primeiros);
+        todos.addAll(segundos);
+        return todos;
+    }
+
+    private Quiz montarQuiz(String titulo, List<QuestaoQuiz> questoes) {
+        Quiz quiz = new Quiz(titulo);
+        questoes.forEach(quiz::adicionarQuestao);
+        return quiz;
+    }
 
-        String prompt = String.format(
-                "Crie %d questões de múltipla escolha sobre o seguinte conteúdo. " +
+    // Sem questões existentes o prompt é o mesmo de sempre (e a chave do cache
+    // também); numa chamada de complemento elas vão listadas para não repetir
+    private Prompt promptQuiz(String conteudo, int numeroQuestoes, List<String> existentes) {
+        return Prompt.de(
+                "Crie " + numeroQuestoes + " questões de múltipla escolha sobre o seguinte conteúdo. " +
                         "IMPORTANTE: Retorne APENAS o JSON puro, sem markdown, sem ```json, sem explicações.\n\n" +
                         "Formato obrigatório:\n" +
                         "{\n" +
@@ -167,19 +743,226 @@ public class AIService {
                         "    }\n" +
                         "  ]\n" +
                         "}\n\n" +
-                        "CONTEÚDO:\n%s\n\n" +
-                        "JSON:",
-                numeroQuestoes,
-                conteudo
+                        "CONTEÚDO:\n",
+                conteudo,
+                listaExistentes("QUESTÕES JÁ CRIADAS (crie questões diferentes destas):", existentes),
+                "\n\nJSON:"
         );
+    }
+
+    // ========== QUIZ EM PARALELO ==========
+
+    // Quizzes grandes viram várias chamadas menores e simultâneas, cada uma
+    // sobre uma fatia diferente do conteúdo. Devolve uma fatia só (o conteúdo
+    // inteiro) quando não vale dividir: poucas questões ou texto curto demais
+    // para ter uma fatia de tamanhoMinimoFatia por chamada.
+    private List<String> fatiarParaQuiz(String conteudo, int numeroQuestoes) {
+        int chamadas = Math.min(maxChamadasQuiz, (numeroQuestoes + questoesPorChamada - 1) / questoesPorChamada);
+        if (!quizParalelo || chamadas <= 1) {
+            return List.of(conteudo);
+        }
+
+        int tamanhoFatia = Math.max(tamanhoMinimoFatia, (conteudo.length() + chamadas - 1) / chamadas);
+        List<String> blocos = DivisorTexto.dividir(conteudo, tamanhoFatia);
+        if (blocos.size() <= 1) {
+            return List.of(conteudo);
+        }
+
+        // Os cortes em fronteiras podem gerar mais blocos que chamadas; os
+        // vizinhos são agrupados para ficar com uma fatia por chamada
+        int fatias = Math.min(chamadas, blocos.size());
+        List<String> agrupadas = new ArrayList<>(fatias);
+        for (int i = 0; i < fatias; i++) {
+            List<String> grupo = blocos.subList(i * blocos.size() / fatias, (i + 1) * blocos.size() / fatias);
+            agrupadas.add(grupo.size() == 1 ? grupo.get(0) : String.join("\n\n", grupo));
+        }
+        return agrupadas;
+    }
+
+    // As questões passam por um filtro de quase-duplicatas antes de entrar no
+    // quiz. Em streaming o filtro é aplicado na chegada, então cada questão
+    // aceita é entregue na hora; sem streaming as partes são juntadas na ordem
+    // das fatias. Se o filtro recusar questões, novas chamadas repõem as que
+    // faltam listando as já aceitas.
+    private CompletableFuture<List<QuestaoQuiz>> gerarQuestoesParaleloAsync(List<String> fatias, int numeroQuestoes, List<String> evitar,
+                                                                            Consumer<QuestaoQuiz> aoCompletarQuestao) {
+        quizzesParalelos.incrementAndGet();
+        chamadasQuizParalelo.addAndGet(fatias.size());
+
+        FiltroQuaseDuplicatas<QuestaoQuiz> filtro =
+                new FiltroQuaseDuplicatas<>(QuestaoQuiz::getTextoPergunta, similaridadeMaximaQuiz, numeroQuestoes);
+        Consumer<QuestaoQuiz> filtrarNaChegada = aoCompletarQuestao == null ? null : questao -> {
+            if (filtro.aceitar(questao)) {
+                aoCompletarQuestao.accept(questao);
+            }
+        };
+
+        List<Supplier<CompletableFuture<List<QuestaoQuiz>>>> tarefas = new ArrayList<>();
+        for (int i = 0; i < fatias.size(); i++) {
+            String fatia = fatias.get(i);
+            int quantidade = numeroQuestoes / fatias.size() + (i < numeroQuestoes % fatias.size() ? 1 : 0);
+            tarefas.add(() -> gerarItensAsync(itensQuiz, (faltam, existentes) -> promptQuiz(fatia, faltam, juntar(evitar, existentes)),
+                    quantidade, filtrarNaChegada));
+        }
+
+        CompletableFuture<List<QuestaoQuiz>> questoes = Futuros.encadear(
+                Futuros.executarComLimite(tarefas, fatias.size()), partes -> {
+                    if (filtrarNaChegada == null) {
+                        partes.forEach(parte -> parte.forEach(filtro::aceitar));
+                    }
+                    return reporQuestoesAsync(fatias, evitar, filtro, filtrarNaChegada, 0);
+                });
+
+        return questoes.thenApply(aceitas -> {
+            duplicatasDescartadas.addAndGet(filtro.getDuplicatas());
+            return aceitas;
+        });
+    }
+
+    // Cada rodada de reposição usa a próxima fatia, para variar o assunto
+    private CompletableFuture<List<QuestaoQuiz>> reporQuestoesAsync(List<String> fatias, List<String> evitar,
+                                                                    FiltroQuaseDuplicatas<QuestaoQuiz> filtro,
+                                                                    Consumer<QuestaoQuiz> filtrarNaChegada, int rodada) {
+        int faltam = filtro.getFaltam();
+        if (faltam == 0 || rodada >= maxComplementos) {
+            return CompletableFuture.completedFuture(filtro.getAceitos());
+        }
+
+        questoesRepostas.addAndGet(faltam);
+        String fatia = fatias.get(rodada % fatias.size());
+        List<String> aceitas = new ArrayList<>(evitar);
+        for (QuestaoQuiz questao : filtro.getAceitos()) {
+            aceitas.add(questao.getTextoPergunta());
+        }
+
+        CompletableFuture<List<QuestaoQuiz>> reposicao = gerarItensAsync(itensQuiz,
+                (quantidade, existentes) -> promptQuiz(fatia, quantidade, juntar(aceitas, existentes)), faltam, filtrarNaChegada);
+
+        return Futuros.encadear(reposicao, novas -> {
+            if (filtrarNaChegada == null) {
+                novas.forEach(filtro::aceitar);
+            }
+            return reporQuestoesAsync(fatias, evitar, filtro, filtrarNaChegada, rodada + 1);
+        });
+    }
+
+    // ========== BANCO DE QUESTÕES ==========
+
+    // Sorteia questões que o usuário ainda não recebeu. Se faltarem, o banco é
+    // reabastecido gerando fatorSobregeracao vezes o pedido de uma vez (até
+    // maxQuestoesBanco); com o banco cheio, o usuário começa um novo ciclo.
+    // Em streaming, as questões novas vão para o usuário conforme chegam.
+    private CompletableFuture<List<QuestaoQuiz>> questoesDoBancoAsync(String conteudo, int numeroQuestoes, int usuario,
+                                                                      Consumer<QuestaoQuiz> aoEntregar) {
+        BancoQuestoes banco = bancoDoDocumento(conteudo);
+        List<QuestaoQuiz> entregues = new ArrayList<>(banco.sortear(usuario, numeroQuestoes));
+        if (aoEntregar != null) {
+            entregues.forEach(aoEntregar);
+        }
+
+        if (entregues.size() == numeroQuestoes) {
+            quizzesDoBanco.incrementAndGet();
+            return CompletableFuture.completedFuture(entregues);
+        }
+
+        if (banco.tamanho() >= maxQuestoesBanco) {
+            quizzesDoBanco.incrementAndGet();
+            return CompletableFuture.completedFuture(novoCiclo(banco, usuario, numeroQuestoes, entregues, aoEntregar));
+        }
+
+        // Em streaming, este pedido ouve as questões que o reabastecimento
+        // (talvez iniciado por outro pedido) adiciona ao banco. Uma falha ao
+        // entregar, como a do cliente que desconectou, só desliga este ouvinte.
+        AtomicBoolean encaminhando = new AtomicBoolean(aoEntregar != null);
+        BiConsumer<Integer, QuestaoQuiz> ouvinte = (indice, questao) -> {
+            synchronized (entregues) {
+                if (!encaminhando.get() || entregues.size() >= numeroQuestoes || !banco.marcarEntregue(usuario, indice)) {
+                    return;
+                }
+                entregues.add(questao);
+                try {
+                    aoEntregar.accept(questao);
+                } catch (RuntimeException e) {
+                    encaminhando.set(false);
+                }
+            }
+        };
+        if (aoEntregar != null) {
+            banco.ouvir(ouvinte);
+        }
+
+        CompletableFuture<Void> reabastecido = banco.reabastecer(() -> reabastecerBanco(banco, conteudo, numeroQuestoes, aoEntregar != null));
+        reabastecido.whenComplete((nada, erro) -> banco.pararDeOuvir(ouvinte));
+        return reabastecido.thenApply(nada -> {
+            synchronized (entregues) {
+                encaminhando.set(false);
+                entregues.addAll(entregar(banco.sortear(usuario, numeroQuestoes - entregues.size()), aoEntregar));
+                return entregues.size() < numeroQuestoes
+                        ? novoCiclo(banco, usuario, numeroQuestoes, entregues, aoEntregar)
+                        : entregues;
+            }
+        });
+    }
+
+    // O usuário já recebeu todo o banco: volta a sortear entre todas as
+    // questões, menos as que acabou de receber
+    private List<QuestaoQuiz> novoCiclo(BancoQuestoes banco, int usuario, int numeroQuestoes,
+                                        List<QuestaoQuiz> entregues, Consumer<QuestaoQuiz> aoEntregar) {
+        ciclosBanco.incrementAndGet();
+        banco.reiniciar(usuario, entregues);
+        entregues.addAll(entregar(banco.sortear(usuario, numeroQuestoes - entregues.size()), aoEntregar));
+        return entregues;
+    }
+
+    private List<QuestaoQuiz> entregar(List<QuestaoQuiz> questoes, Consumer<QuestaoQuiz> aoEntregar) {
+        if (aoEntregar != null) {
+            questoes.forEach(aoEntregar);
+        }
+        return questoes;
+    }
 
-        String resposta = chamarIA(prompt, systemPrompt);
+    // As perguntas do banco vão no prompt para o modelo não repeti-las, e o
+    // filtro de quase-duplicatas começa com elas
+    // Com incremental, cada questão entra no banco (e chega aos ouvintes)
+    // assim que fecha na resposta em streaming
+    private CompletableFuture<Void> reabastecerBanco(BancoQuestoes banco, String conteudo, int numeroQuestoes,
+                                                     boolean incremental) {
+        List<QuestaoQuiz> existentes = banco.todas();
+        int quantidade = Math.min(maxQuestoesBanco - existentes.size(),
+                Math.max(minGeracaoBanco, numeroQuestoes * fatorSobregeracao));
+
+        FiltroQuaseDuplicatas<QuestaoQuiz> filtro = new FiltroQuaseDuplicatas<>(
+                QuestaoQuiz::getTextoPergunta, similaridadeMaximaQuiz, existentes.size() + quantidade);
+        List<String> evitar = new ArrayList<>();
+        for (QuestaoQuiz questao : existentes) {
+            filtro.aceitar(questao);
+            evitar.add(questao.getTextoPergunta());
+        }
 
-        resposta = resposta.replaceAll("```json\\s*", "")
-                .replaceAll("```\\s*", "")
-                .trim();
+        Consumer<QuestaoQuiz> guardar = questao -> {
+            if (filtro.aceitar(questao)) {
+                banco.avisarNova(banco.adicionar(questao), questao);
+            }
+        };
 
-        return parseQuizJSON(resposta, titulo);
+        reabastecimentosBanco.incrementAndGet();
+        System.out.println("🏦 Reabastecendo banco de questões (" + existentes.size() + " questões) com mais " + quantidade);
+
+        CompletableFuture<List<QuestaoQuiz>> geradas = gerarQuestoesAsync(conteudo, quantidade, evitar,
+                incremental ? guardar : null);
+        return geradas.thenAccept(questoes -> {
+            if (!incremental) {
+                questoes.forEach(guardar);
+            }
+        });
+    }
+
+    // A chave inclui as assinaturas do provedor e dos perfis: trocar de modelo começa bancos novos
+    private BancoQuestoes bancoDoDocumento(String conteudo) {
+        String chave = Hash.sha256(provedor.assinatura(), roteador.assinatura(), conteudo);
+        synchronized (bancosQuestoes) {
+            return bancosQuestoes.computeIfAbsent(chave, c -> new BancoQuestoes());
+        }
     }
 
     public Quiz criarQuizPDF(InputStream pdfStream, String titulo, int numeroQuestoes) throws IOException {
@@ -197,11 +980,25 @@ public class AIService {
     // =======================
 
     public List<Flashcard> criarFlashcards(String conteudo, int numeroCards) throws IOException {
-        String systemPrompt = "Você é um assistente educacional que cria flashcards para estudo em português do Brasil. " +
-                "Sempre responda APENAS com um JSON válido, sem texto adicional antes ou depois.";
+        return aguardar(criarFlashcardsAsync(conteudo, numeroCards));
+    }
 
-        String prompt = String.format(
-                "Crie %d flashcards sobre o seguinte conteúdo. " +
+    public CompletableFuture<List<Flashcard>> criarFlashcardsAsync(String conteudo, int numeroCards) {
+        return gerarItensAsync(itensFlashcards, (quantidade, existentes) -> promptFlashcards(conteudo, quantidade, existentes),
+                numeroCards, null);
+    }
+
+    // Entrega cada flashcard a aoCompletarCard assim que o objeto dele fecha
+    // na resposta em streaming; completa com a lista inteira.
+    public CompletableFuture<List<Flashcard>> criarFlashcardsStream(String conteudo, int numeroCards,
+                                                                    Consumer<Flashcard> aoCompletarCard) {
+        return gerarItensAsync(itensFlashcards, (quantidade, existentes) -> promptFlashcards(conteudo, quantidade, existentes),
+                numeroCards, aoCompletarCard);
+    }
+
+    private Prompt promptFlashcards(String conteudo, int numeroCards, List<String> existentes) {
+        return Prompt.de(
+                "Crie " + numeroCards + " flashcards sobre o seguinte conteúdo. " +
                         "IMPORTANTE: Retorne APENAS o JSON puro, sem markdown, sem ```json, sem explicações.\n\n" +
                         "Formato obrigatório:\n" +
                         "{\n" +
@@ -212,19 +1009,11 @@ public class AIService {
                         "    }\n" +
                         "  ]\n" +
                         "}\n\n" +
-                        "CONTEÚDO:\n%s\n\n" +
-                        "JSON:",
-                numeroCards,
-                conteudo
+                        "CONTEÚDO:\n",
+                conteudo,
+                listaExistentes("FLASHCARDS JÁ CRIADOS (crie flashcards diferentes destes):", existentes),
+                "\n\nJSON:"
         );
-
-        String resposta = chamarIA(prompt, systemPrompt);
-
-        resposta = resposta.replaceAll("```json\\s*", "")
-                .replaceAll("```\\s*", "")
-                .trim();
-
-        return parseFlashcardsJSON(resposta);
     }
 
     public List<Flashcard> criarFlashcardsPDF(InputStream pdfStream, int numeroCards) throws IOException {
@@ -237,99 +1026,415 @@ public class AIService {
         return criarFlashcards(texto, numeroCards);
     }
 
+    // =======================
+    // GERAÇÃO DE ITENS COM COMPLEMENTO
+    // =======================
+
+    // Pede quantidade itens ao modelo. Se a resposta for cortada no limite de
+    // tokens (finishReason MAX_TOKENS ou JSON sem fechar), os itens que já
+    // fecharam são aproveitados e uma nova chamada pede só os que faltam,
+    // até maxComplementos vezes. Com aoCompletarItem a geração é em streaming
+    // e cada item é entregue assim que fecha, inclusive nos complementos.
+    private <T> CompletableFuture<List<T>> gerarItensAsync(TipoItens<T> tipo, BiFunction<Integer, List<String>, Prompt> montarPrompt,
+                                                           int quantidade, Consumer<T> aoCompletarItem) {
+        return gerarRodadaAsync(tipo, montarPrompt, quantidade, new ArrayList<>(), aoCompletarItem, 0);
+    }
+
+    private <T> CompletableFuture<List<T>> gerarRodadaAsync(TipoItens<T> tipo, BiFunction<Integer, List<String>, Prompt> montarPrompt,
+                                                            int quantidade, List<T> itens, Consumer<T> aoCompletarItem, int rodada) {
+        List<String> existentes = new ArrayList<>();
+        for (T item : itens) {
+            existentes.add(tipo.identificacao.apply(item));
+        }
+        int pedidos = quantidade - itens.size();
+        Prompt prompt = montarPrompt.apply(pedidos, existentes);
+
+        CompletableFuture<Lote<T>> lote = aoCompletarItem == null
+                ? chamarIAAsync(tipo.operacao, pedidos, prompt, tipo.systemPrompt, resposta -> lerLote(tipo, resposta))
+                : lerLoteStream(tipo, pedidos, prompt, aoCompletarItem);
+
+        return Futuros.encadear(lote, recebido -> {
+            itens.addAll(recebido.itens);
+            if (!recebido.truncado) {
+                return CompletableFuture.completedFuture(itens);
+            }
+
+            respostasTruncadas.incrementAndGet();
+            itensAproveitados.addAndGet(recebido.itens.size());
+            if (recebido.itens.isEmpty() || itens.size() >= quantidade || rodada >= maxComplementos) {
+                return CompletableFuture.completedFuture(itens);
+            }
+
+            chamadasComplemento.incrementAndGet();
+            System.out.println("✂️ Resposta de " + tipo.nome + " truncada com " + itens.size() + "/" + quantidade +
+                    " itens; pedindo os " + (quantidade - itens.size()) + " restantes");
+            return gerarRodadaAsync(tipo, montarPrompt, quantidade, itens, aoCompletarItem, rodada + 1);
+        });
+    }
+
+    // Sem estado: no caminho sem streaming o conversor roda uma vez dentro do
+    // voo compartilhado e de novo para cada requisição que espera por ele
+    private <T> Lote<T> lerLote(TipoItens<T> tipo, RespostaIA resposta) {
+        List<T> itens = new ArrayList<>();
+        LeitorItensJson<T> leitor = new LeitorItensJson<>(tipo.campo, tipo.esquemaItem, tipo.conversor, itens::add);
+        leitor.alimentar(resposta.getTexto());
+        return new Lote<>(itens, verificarTruncamento(leitor, tipo.nome, resposta));
+    }
+
+    private <T> CompletableFuture<Lote<T>> lerLoteStream(TipoItens<T> tipo, int pedidos, Prompt prompt, Consumer<T> aoCompletarItem) {
+        List<T> itens = new ArrayList<>();
+        LeitorItensJson<T> leitor = new LeitorItensJson<>(tipo.campo, tipo.esquemaItem, tipo.conversor, item -> {
+            itens.add(item);
+            aoCompletarItem.accept(item);
+        });
+
+        return chamarIAStream(tipo.operacao, pedidos, prompt, tipo.systemPrompt, leitor::alimentar,
+                resposta -> new Lote<>(itens, verificarTruncamento(leitor, tipo.nome, resposta)));
+    }
+
+    // Uma resposta truncada com ao menos um item completo é aceita; sem nenhum
+    // item, ou com a lista ausente ou algum item inválido, continua sendo erro
+    private boolean verificarTruncamento(LeitorItensJson<?> leitor, String tipo, RespostaIA resposta) {
+        boolean truncada = resposta.isTruncada() || !leitor.isCompleto();
+        if (truncada && leitor.getItens() > 0) {
+            return true;
+        }
+
+        finalizarLeitura(leitor, tipo, resposta.getTexto());
+        return truncada;
+    }
+
+    private static String listaExistentes(String titulo, List<String> existentes) {
+        if (existentes.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder lista = new StringBuilder("\n\n").append(titulo).append('\n');
+        for (String existente : existentes) {
+            lista.append("- ").append(existente).append('\n');
+        }
+        return lista.toString();
+    }
+
+    // Como pedir e ler uma lista de itens de um tipo (questões ou flashcards)
+    private static final class TipoItens<T> {
+        private final OperacaoIA operacao;
+        private final String systemPrompt;
+        private final String nome;
+        private final String campo;
+        private final EsquemaJson esquemaItem;
+        private final LeitorItensJson.ConversorItem<T> conversor;
+        private final Function<T, String> identificacao;
+
+        private TipoItens(OperacaoIA operacao, String systemPrompt, String nome, String campo, EsquemaJson esquemaItem,
+                          LeitorItensJson.ConversorItem<T> conversor, Function<T, String> identificacao) {
+            this.operacao = operacao;
+            this.systemPrompt = systemPrompt;
+            this.nome = nome;
+            this.campo = campo;
+            this.esquemaItem = esquemaItem;
+            this.conversor = conversor;
+            this.identificacao = identificacao;
+        }
+    }
+
+    // Itens completos de uma resposta e se ela foi cortada antes do fim
+    private static final class Lote<T> {
+        private final List<T> itens;
+        private final boolean truncado;
+
+        private Lote(List<T> itens, boolean truncado) {
+            this.itens = itens;
+            this.truncado = truncado;
+        }
+    }
+
     // =======================
     // MÉTODOS DE DÚVIDAS
     // =======================
 
     public String responderDuvida(String pergunta, String contexto) throws IOException {
-        String systemPrompt = "Você é um tutor educacional paciente e didático que responde em português do Brasil. " +
-                "Explique conceitos de forma clara, use exemplos quando apropriado, " +
-                "e formate suas respostas em Markdown para melhor legibilidade.";
+        return aguardar(responderDuvidaAsync(pergunta, contexto));
+    }
+
+    // Perguntas sem contexto passam pelo cache semântico: uma pergunta
+    // equivalente a outra já respondida reaproveita a resposta sem chamar o
+    // Gemini. Com contexto a resposta depende do texto enviado e não é cacheada.
+    public CompletableFuture<String> responderDuvidaAsync(String pergunta, String contexto) {
+        if (!usaCacheSemantico(contexto)) {
+            return chamarIAAsync(OperacaoIA.DUVIDA, 0, promptDuvida(pergunta, contexto), SYSTEM_PROMPT_DUVIDA, RespostaIA::getTexto);
+        }
+
+        return Futuros.encadear(cacheSemantico.buscarAsync(pergunta), consulta -> {
+            if (consulta.getResposta() != null) {
+                return CompletableFuture.completedFuture(consulta.getResposta());
+            }
+
+            CompletableFuture<String> resposta =
+                    chamarIAAsync(OperacaoIA.DUVIDA, 0, promptDuvida(pergunta, null), SYSTEM_PROMPT_DUVIDA, RespostaIA::getTexto);
+            return Futuros.vincularCancelamento(resposta.thenApply(texto -> {
+                cacheSemantico.guardar(consulta, texto);
+                return texto;
+            }), resposta);
+        });
+    }
+
+    // Um acerto no cache semântico é entregue como um único trecho
+    public CompletableFuture<String> responderDuvidaStream(String pergunta, String contexto, Consumer<String> aoReceberTrecho) {
+        if (!usaCacheSemantico(contexto)) {
+            return chamarIAStream(OperacaoIA.DUVIDA, 0, promptDuvida(pergunta, contexto), SYSTEM_PROMPT_DUVIDA, aoReceberTrecho, RespostaIA::getTexto);
+        }
+
+        return Futuros.encadear(cacheSemantico.buscarAsync(pergunta), consulta -> {
+            if (consulta.getResposta() != null) {
+                aoReceberTrecho.accept(consulta.getResposta());
+                return CompletableFuture.completedFuture(consulta.getResposta());
+            }
+
+            return chamarIAStream(OperacaoIA.DUVIDA, 0, promptDuvida(pergunta, null), SYSTEM_PROMPT_DUVIDA, aoReceberTrecho, resposta -> {
+                cacheSemantico.guardar(consulta, resposta.getTexto());
+                return resposta.getTexto();
+            });
+        });
+    }
+
+    // Para perguntas sobre um documento: os trechos mais relevantes para a
+    // pergunta em vez do texto inteiro (ver RecuperadorTrechos)
+    public String contextoRelevante(String chaveDocumento, String texto, String pergunta) {
+        return recuperador.contexto(chaveDocumento, texto, pergunta);
+    }
 
-        String prompt;
+    private boolean usaCacheSemantico(String contexto) {
+        return cacheSemantico != null && (contexto == null || contexto.isEmpty());
+    }
+
+    private Prompt promptDuvida(String pergunta, String contexto) {
         if (contexto != null && !contexto.isEmpty()) {
-            prompt = String.format(
+            return Prompt.de(
                     "Baseado no seguinte contexto, responda a pergunta do estudante de forma didática:\n\n" +
-                            "CONTEXTO:\n%s\n\n" +
-                            "PERGUNTA: %s\n\n" +
-                            "RESPOSTA EM MARKDOWN:",
+                            "CONTEXTO:\n",
                     contexto,
-                    pergunta
-            );
-        } else {
-            prompt = String.format(
-                    "Responda a seguinte pergunta de forma clara, didática e bem explicada:\n\n" +
-                            "PERGUNTA: %s\n\n" +
-                            "RESPOSTA EM MARKDOWN:",
-                    pergunta
+                    "\n\nPERGUNTA: ",
+                    pergunta,
+                    "\n\nRESPOSTA EM MARKDOWN:"
             );
         }
 
-        return chamarIA(prompt, systemPrompt);
+        return Prompt.de(
+                "Responda a seguinte pergunta de forma clara, didática e bem explicada:\n\n" +
+                        "PERGUNTA: ",
+                pergunta,
+                "\n\nRESPOSTA EM MARKDOWN:"
+        );
     }
 
     // =======================
-    // MÉTODOS AUXILIARES PARA PARSE
+    // MÉTRICAS
     // =======================
 
-    private Quiz parseQuizJSON(String jsonString, String titulo) {
-        Quiz quiz = new Quiz(titulo);
+    public DisjuntorCircuito.Estado estadoCircuito() {
+        return disjuntor.getEstado();
+    }
 
-        try {
-            JsonObject jsonResponse = gson.fromJson(jsonString, JsonObject.class);
-            JsonArray questoesArray = jsonResponse.getAsJsonArray("questoes");
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+
+        Map<String, Object> coalescencia = new LinkedHashMap<>();
+        coalescencia.put("emAndamento", voosEmAndamento.getEmAndamento());
+        coalescencia.put("chamadasOriginais", voosEmAndamento.getChamadasOriginais());
+        coalescencia.put("chamadasEconomizadas", voosEmAndamento.getChamadasEconomizadas());
+        coalescencia.put("voosCancelados", voosEmAndamento.getVoosCancelados());
+        metricas.put("coalescencia", coalescencia);
+
+        Map<String, Object> circuito = new LinkedHashMap<>();
+        circuito.put("estado", disjuntor.getEstado().name());
+        circuito.put("taxaFalhas", disjuntor.getTaxaFalhas());
+        circuito.put("aberturas", disjuntor.getAberturas());
+        circuito.put("recusadas", disjuntor.getRecusadas());
+        metricas.put("circuito", circuito);
+
+        Map<String, Object> limite = new LinkedHashMap<>();
+        limite.put("limite", limitador.getLimite());
+        limite.put("emUso", limitador.getEmUso());
+        limite.put("fila", limitador.getFila());
+        limite.put("aceitas", limitador.getAceitas());
+        limite.put("rejeitadas", limitador.getRejeitadas());
+        limite.put("expiradas", limitador.getExpiradas());
+        limite.put("reducoes", limitador.getReducoes());
+        limite.put("latenciaMediaMs", limitador.getLatenciaMediaMillis());
+        metricas.put("limiteConcorrencia", limite);
+
+        Map<String, Object> repeticoes = new LinkedHashMap<>();
+        repeticoes.put("operacoes", repeticao.getOperacoes());
+        repeticoes.put("repeticoes", repeticao.getRepeticoes());
+        repeticoes.put("recuperadas", repeticao.getRecuperadas());
+        repeticoes.put("negadasPorOrcamento", repeticao.getNegadasPorOrcamento());
+        repeticoes.put("saldoOrcamento", repeticao.getSaldo());
+        metricas.put("repeticao", repeticoes);
+
+        if (hedgeHabilitado) {
+            Map<String, Object> hedgeMetricas = new LinkedHashMap<>();
+            hedges.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entrada -> {
+                        Hedge hedge = entrada.getValue();
+                        Map<String, Object> dados = new LinkedHashMap<>();
+                        dados.put("disparados", hedge.getDisparados());
+                        dados.put("vitorias", hedge.getVitorias());
+                        dados.put("atrasoMs", hedge.getAtrasoMillis());
+                        hedgeMetricas.put(entrada.getKey(), dados);
+                    });
+            metricas.put("hedge", hedgeMetricas);
+        }
 
-            if (questoesArray == null) {
-                throw new RuntimeException("JSON não contém array 'questoes'");
+        Map<String, Object> saidaEstruturada = new LinkedHashMap<>();
+        saidaEstruturada.put("habilitada", !esquemasResposta.isEmpty());
+        saidaEstruturada.put("respostasInvalidas", respostasInvalidas.get());
+        metricas.put("saidaEstruturada", saidaEstruturada);
+
+        Map<String, Object> truncamento = new LinkedHashMap<>();
+        truncamento.put("respostasTruncadas", respostasTruncadas.get());
+        truncamento.put("itensAproveitados", itensAproveitados.get());
+        truncamento.put("chamadasComplemento", chamadasComplemento.get());
+        truncamento.put("maxComplementos", maxComplementos);
+        metricas.put("truncamento", truncamento);
+
+        Map<String, Object> paralelo = new LinkedHashMap<>();
+        paralelo.put("habilitado", quizParalelo);
+        paralelo.put("quizzes", quizzesParalelos.get());
+        paralelo.put("chamadas", chamadasQuizParalelo.get());
+        paralelo.put("duplicatasDescartadas", duplicatasDescartadas.get());
+        paralelo.put("questoesRepostas", questoesRepostas.get());
+        metricas.put("quizParalelo", paralelo);
+
+        if (bancosQuestoes != null) {
+            Map<String, Object> banco = new LinkedHashMap<>();
+            int questoes = 0;
+            long bytes = 0;
+            synchronized (bancosQuestoes) {
+                banco.put("documentos", bancosQuestoes.size());
+                for (BancoQuestoes documento : bancosQuestoes.values()) {
+                    questoes += documento.tamanho();
+                    bytes += documento.getBytes();
+                }
             }
+            banco.put("questoes", questoes);
+            banco.put("bytes", bytes);
+            banco.put("quizzesSemChamada", quizzesDoBanco.get());
+            banco.put("reabastecimentos", reabastecimentosBanco.get());
+            banco.put("ciclosReiniciados", ciclosBanco.get());
+            metricas.put("bancoQuestoes", banco);
+        }
 
-            for (int i = 0; i < questoesArray.size(); i++) {
-                JsonObject questaoObj = questoesArray.get(i).getAsJsonObject();
-
-                String pergunta = questaoObj.get("pergunta").getAsString();
-
-                JsonArray opcoesArray = questaoObj.getAsJsonArray("opcoes");
-                List<String> opcoes = new ArrayList<>();
-                for (int j = 0; j < opcoesArray.size(); j++) {
-                    opcoes.add(opcoesArray.get(j).getAsString());
-                }
+        metricas.put("rotasModelo", roteador.metricas());
+        metricas.put("pdf", pdfReader.metricas());
+        metricas.put("recuperacao", recuperador.metricas());
+
+        Map<String, Object> resumoEmBlocos = new LinkedHashMap<>();
+        resumoEmBlocos.put("resumos", resumosEmBlocos.get());
+        resumoEmBlocos.put("blocosResumidos", blocosResumidos.get());
+        resumoEmBlocos.put("paralelismo", paralelismoResumo);
+        metricas.put("resumoEmBlocos", resumoEmBlocos);
+
+        if (cacheSemantico != null) {
+            Map<String, Object> semantico = new LinkedHashMap<>();
+            semantico.put("embedding", cacheSemantico.getEmbedding());
+            semantico.put("entradas", cacheSemantico.tamanho());
+            semantico.put("acertos", cacheSemantico.getAcertos());
+            semantico.put("faltas", cacheSemantico.getFaltas());
+            semantico.put("taxaAcerto", cacheSemantico.taxaDeAcerto());
+            semantico.put("usosEmbeddingLocal", cacheSemantico.getUsosReserva());
+            metricas.put("cacheSemantico", semantico);
+        }
 
-                String respostaCorreta = questaoObj.get("resposta_correta").getAsString();
+        if (cacheRespostas != null) {
+            Map<String, Object> cache = new LinkedHashMap<>();
+            cache.put("entradas", cacheRespostas.tamanho());
+            cache.put("caracteres", cacheRespostas.peso());
+            cache.put("acertos", cacheRespostas.getAcertos());
+            cache.put("faltas", cacheRespostas.getFaltas());
+            cache.put("taxaAcerto", cacheRespostas.taxaDeAcerto());
+            cache.put("expiradas", cacheRespostas.getExpiradas());
+            cache.put("despejadas", cacheRespostas.getDespejadas());
+            cache.put("rejeitadas", cacheRespostas.getRejeitadas());
+            metricas.put("cacheRespostas", cache);
+        }
 
-                QuestaoQuiz questao = new QuestaoQuiz(pergunta, opcoes, respostaCorreta);
-                quiz.adicionarQuestao(questao);
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao processar JSON do quiz: " + e.getMessage() + "\nJSON recebido: " + jsonString, e);
+        if (armazemRespostas != null) {
+            Map<String, Object> armazem = new LinkedHashMap<>();
+            armazem.put("entradas", armazemRespostas.tamanho());
+            armazem.put("bytesArquivo", armazemRespostas.getBytesArquivo());
+            armazem.put("bytesMortos", armazemRespostas.getBytesMortos());
+            armazem.put("acertos", armazemRespostas.getAcertos());
+            armazem.put("faltas", armazemRespostas.getFaltas());
+            armazem.put("corrompidas", armazemRespostas.getCorrompidas());
+            armazem.put("compactacoes", armazemRespostas.getCompactacoes());
+            metricas.put("armazemRespostas", armazem);
         }
 
-        return quiz;
+        return metricas;
     }
 
-    private List<Flashcard> parseFlashcardsJSON(String jsonString) {
-        List<Flashcard> flashcards = new ArrayList<>();
+    // =======================
+    // MÉTODOS AUXILIARES PARA PARSE
+    // =======================
 
+    private void finalizarLeitura(LeitorItensJson<?> leitor, String tipo, String jsonString) {
         try {
-            JsonObject jsonResponse = gson.fromJson(jsonString, JsonObject.class);
-            JsonArray flashcardsArray = jsonResponse.getAsJsonArray("flashcards");
+            leitor.finalizar();
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Erro ao processar JSON do " + tipo + ": " + e.getMessage() + "\nJSON recebido: " + jsonString, e);
+        }
+    }
 
-            if (flashcardsArray == null) {
-                throw new RuntimeException("JSON não contém array 'flashcards'");
+    private QuestaoQuiz lerQuestao(JsonReader leitor) throws IOException {
+        String pergunta = null;
+        List<String> opcoes = null;
+        String respostaCorreta = null;
+
+        leitor.beginObject();
+        while (leitor.hasNext()) {
+            switch (leitor.nextName()) {
+                case "pergunta" -> pergunta = leitor.nextString();
+                case "opcoes" -> {
+                    opcoes = new ArrayList<>();
+                    leitor.beginArray();
+                    while (leitor.hasNext()) {
+                        opcoes.add(leitor.nextString());
+                    }
+                    leitor.endArray();
+                }
+                case "resposta_correta" -> respostaCorreta = leitor.nextString();
+                default -> leitor.skipValue();
             }
+        }
+        leitor.endObject();
+
+        if (pergunta == null || opcoes == null || respostaCorreta == null) {
+            throw new IllegalStateException("questão sem 'pergunta', 'opcoes' ou 'resposta_correta'");
+        }
 
-            for (int i = 0; i < flashcardsArray.size(); i++) {
-                JsonObject cardObj = flashcardsArray.get(i).getAsJsonObject();
+        return new QuestaoQuiz(pergunta, opcoes, respostaCorreta);
+    }
 
-                String frente = cardObj.get("frente").getAsString();
-                String verso = cardObj.get("verso").getAsString();
+    private Flashcard lerFlashcard(JsonReader leitor) throws IOException {
+        String frente = null;
+        String verso = null;
 
-                Flashcard card = new Flashcard(frente, verso);
-                flashcards.add(card);
+        leitor.beginObject();
+        while (leitor.hasNext()) {
+            switch (leitor.nextName()) {
+                case "frente" -> frente = leitor.nextString();
+                case "verso" -> verso = leitor.nextString();
+                default -> leitor.skipValue();
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao processar JSON dos flashcards: " + e.getMessage() + "\nJSON recebido: " + jsonString, e);
+        }
+        leitor.endObject();
+
+        if (frente == null || verso == null) {
+            throw new IllegalStateException("flashcard sem 'frente' ou 'verso'");
         }
 
-        return flashcards;
+        return new Flashcard(frente, verso);
     }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.tutoria.service;
+
+import com.tutoria.model.QuestaoQuiz;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+// Questões já geradas para um documento. Cada questão fica num único byte[]
+// (pergunta, opções e o índice da resposta correta entre elas) em vez de um
+// QuestaoQuiz com uma lista e várias Strings. Cada usuário tem um BitSet das
+// questões que já recebeu e os sorteios só tiram questões fora dele.
+class BancoQuestoes {
+
+    private static final int RESPOSTA_FORA_DAS_OPCOES = -1;
+
+    private final List<byte[]> questoes = new ArrayList<>();
+    private final Map<Integer, BitSet> entreguesPorUsuario = new HashMap<>();
+    private long bytes;
+    private CompletableFuture<Void> reabastecimento;
+    private final List<BiConsumer<Integer, QuestaoQuiz>> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Devolve o índice da questão no banco
+    synchronized int adicionar(QuestaoQuiz questao) {
+        byte[] codificada = codificar(questao);
+        questoes.add(codificada);
+        bytes += codificada.length;
+        return questoes.size() - 1;
+    }
+
+    // Até quantidade questões ainda não entregues ao usuário, em ordem
+    // aleatória, já marcadas como entregues
+    synchronized List<QuestaoQuiz> sortear(int usuario, int quantidade) {
+        BitSet entregues = entreguesPorUsuario.computeIfAbsent(usuario, u -> new BitSet());
+
+        int[] disponiveis = new int[questoes.size() - entregues.cardinality()];
+        int total = 0;
+        for (int i = entregues.nextClearBit(0); i < questoes.size(); i = entregues.nextClearBit(i + 1)) {
+            disponiveis[total++] = i;
+        }
+
+        // Fisher-Yates parcial: só as primeiras posições são embaralhadas
+        List<QuestaoQuiz> sorteadas = new ArrayList<>(Math.min(quantidade, total));
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        for (int i = 0; i < quantidade && i < total; i++) {
+            int j = i + aleatorio.nextInt(total - i);
+            int escolhida = disponiveis[j];
+            disponiveis[j] = disponiveis[i];
+
+            entregues.set(escolhida);
+            sorteadas.add(decodificar(questoes.get(escolhida)));
+        }
+        return sorteadas;
+    }
+
+    // false se o usuário já tinha recebido a questão (outro pedido dele, por exemplo)
+    synchronized boolean marcarEntregue(int usuario, int indice) {
+        BitSet entregues = entreguesPorUsuario.computeIfAbsent(usuario, u -> new BitSet());
+        if (entregues.get(indice)) {
+            return false;
+        }
+        entregues.set(indice);
+        return true;
+    }
+
+    // O usuário já viu o banco inteiro: começa um novo ciclo, mantendo
+    // marcadas só as questões que acabou de receber
+    synchronized void reiniciar(int usuario, List<QuestaoQuiz> manter) {
+        BitSet recentes = new BitSet();
+        for (QuestaoQuiz questao : manter) {
+            byte[] codificada = codificar(questao);
+            for (int i = 0; i < questoes.size(); i++) {
+                if (Arrays.equals(questoes.get(i), codificada)) {
+                    recentes.set(i);
+                }
+            }
+        }
+        entreguesPorUsuario.put(usuario, recentes);
+    }
+
+    synchronized List<QuestaoQuiz> todas() {
+        List<QuestaoQuiz> todas = new ArrayList<>(questoes.size());
+        for (byte[] questao : questoes) {
+            todas.add(decodificar(questao));
+        }
+        return todas;
+    }
+
+    synchronized int tamanho() {
+        return questoes.size();
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    // ========== REABASTECIMENTO ==========
+
+    // Pedidos simultâneos que encontram o banco baixo esperam a mesma geração.
+    // Cada um recebe uma cópia, então cancelar um pedido não cancela a geração
+    // que os outros aguardam.
+    synchronized CompletableFuture<Void> reabastecer(Supplier<CompletableFuture<Void>> geracao) {
+        if (reabastecimento == null) {
+            CompletableFuture<Void> futuro = geracao.get();
+            reabastecimento = futuro;
+            futuro.whenComplete((nada, erro) -> terminarReabastecimento(futuro));
+        }
+        return reabastecimento.copy();
+    }
+
+    private synchronized void terminarReabastecimento(CompletableFuture<Void> futuro) {
+        if (reabastecimento == futuro) {
+            reabastecimento = null;
+        }
+    }
+
+    // Pedidos em streaming ouvem as questões que o reabastecimento adiciona.
+    // O aviso é feito fora do lock do banco; cada ouvinte trata as próprias
+    // falhas, e a geração só adiciona questões ao banco.
+    void ouvir(BiConsumer<Integer, QuestaoQuiz> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    void pararDeOuvir(BiConsumer<Integer, QuestaoQuiz> ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    void avisarNova(int indice, QuestaoQuiz questao) {
+        for (BiConsumer<Integer, QuestaoQuiz> ouvinte : ouvintes) {
+            ouvinte.accept(indice, questao);
+        }
+    }
+
+    // ========== CODIFICAÇÃO ==========
+
+    private static byte[] codificar(QuestaoQuiz questao) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream saida = new DataOutputStream(buffer)) {
+            List<String> opcoes = questao.getOpcoesResposta();
+            int correta = opcoes.indexOf(questao.getRespostaCorreta());
+
+            saida.writeUTF(questao.getTextoPergunta());
+            saida.writeByte(opcoes.size());
+            for (String opcao : opcoes) {
+                saida.writeUTF(opcao);
+            }
+            saida.writeByte(correta);
+            if (correta == RESPOSTA_FORA_DAS_OPCOES) {
+                saida.writeUTF(questao.getRespostaCorreta());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Questão não cabe no banco: " + e.getMessage(), e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static QuestaoQuiz decodificar(byte[] codificada) {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(codificada))) {
+            String pergunta = entrada.readUTF();
+            int totalOpcoes = entrada.readUnsignedByte();
+            List<String> opcoes = new ArrayList<>(totalOpcoes);
+            for (int i = 0; i < totalOpcoes; i++) {
+                opcoes.add(entrada.readUTF());
+            }
+            int correta = entrada.readByte();
+            String resposta = correta == RESPOSTA_FORA_DAS_OPCOES ? entrada.readUTF() : opcoes.get(correta);
+            return new QuestaoQuiz(pergunta, opcoes, resposta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.tutoria.service;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Utf8;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Corpo do generateContent escrito direto no sink do OkHttp: o começo fixo
+// (generationConfig, safetySettings e a abertura de contents) é serializado
+// uma vez pelo ProvedorGemini; por requisição só os pedaços do prompt são
+// escapados para JSON e escritos, sem montar a árvore nem a String do corpo.
+class CorpoRequisicaoGemini extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final byte[] SUFIXO = "\"}]}]}".getBytes(StandardCharsets.UTF_8);
+
+    private static final String[] ESCAPES_CONTROLE = new String[0x20];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES_CONTROLE[c] = String.format("\\u%04x", c);
+        }
+        ESCAPES_CONTROLE['\n'] = "\\n";
+        ESCAPES_CONTROLE['\r'] = "\\r";
+        ESCAPES_CONTROLE['\t'] = "\\t";
+        ESCAPES_CONTROLE['\b'] = "\\b";
+        ESCAPES_CONTROLE['\f'] = "\\f";
+    }
+
+    private final byte[] prefixo;
+    private final Prompt texto;
+    private final long tamanho;
+
+    // prefixo termina em ..."parts":[{"text":" (com a aspa que abre o valor)
+    CorpoRequisicaoGemini(byte[] prefixo, Prompt texto) {
+        this.prefixo = prefixo;
+        this.texto = texto;
+
+        long bytes = prefixo.length + SUFIXO.length;
+        for (String parte : texto.partes()) {
+            bytes += tamanhoEscapado(parte);
+        }
+        this.tamanho = bytes;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return tamanho;
+    }
+
+    // Pode ser chamado de novo se o OkHttp refizer a conexão; nada aqui é consumido
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.write(prefixo);
+        for (String parte : texto.partes()) {
+            escrever(parte, sink);
+        }
+        sink.write(SUFIXO);
+    }
+
+    // ========== ESCAPE JSON ==========
+
+    // Mesmas regras do JsonWriter do Gson (sem modo HTML): aspas, barra
+    // invertida, caracteres de controle e U+2028/U+2029. Os trechos sem nada a
+    // escapar vão inteiros para o sink.
+    private static void escrever(String parte, BufferedSink sink) throws IOException {
+        int inicio = 0;
+        for (int i = 0; i < parte.length(); i++) {
+            String escape = escape(parte.charAt(i));
+            if (escape == null) {
+                continue;
+            }
+            if (inicio < i) {
+                sink.writeUtf8(parte, inicio, i);
+            }
+            sink.writeUtf8(escape);
+            inicio = i + 1;
+        }
+        if (inicio < parte.length()) {
+            sink.writeUtf8(parte, inicio, parte.length());
+        }
+    }
+
+    private static long tamanhoEscapado(String parte) {
+        long bytes = 0;
+        int inicio = 0;
+        for (int i = 0; i < parte.length(); i++) {
+            String escape = escape(parte.charAt(i));
+            if (escape == null) {
+                continue;
+            }
+            bytes += Utf8.size(parte, inicio, i) + escape.length();
+            inicio = i + 1;
+        }
+        return bytes + Utf8.size(parte, inicio, parte.length());
+    }
+
+    private static String escape(char c) {
+        if (c < 0x20) {
+            return ESCAPES_CONTROLE[c];
+        }
+
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\u2028' -> "\\u2028";
+            case '\u2029' -> "\\u2029";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package com.tutoria.service;
+
+import com.tutoria.model.Documento;
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.PDFReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Documentos enviados uma vez por POST /api/documentos. O texto é extraído no
+// upload e as rotas de IA recebem só o documentId, sem reenviar o PDF nem
+// passar de novo pelo PDFBox. O PDF em si não é guardado: todas as rotas usam
+// apenas o texto. Os documentos ficam em memória, em ordem LRU, limitados por
+// quantidade e pelo total de caracteres, e expiram sem uso depois do TTL.
+// Cada documento só é visível para o usuário que o enviou.
+public class DocumentoService {
+
+    private final PDFReader pdfReader;
+    private final int maxDocumentos;
+    private final long maxCaracteres;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entrada> documentos = new LinkedHashMap<>(16, 0.75f, true);
+    private long caracteres;
+
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong reusos = new AtomicLong();
+    private final AtomicLong naoEncontrados = new AtomicLong();
+    private final AtomicLong removidosPorLimite = new AtomicLong();
+
+    public DocumentoService(PDFReader pdfReader) {
+        this.pdfReader = pdfReader;
+        this.maxDocumentos = ConfigLoader.getIntProperty("documentos.max.entradas", 2_000);
+        this.maxCaracteres = ConfigLoader.getLongProperty("documentos.max.caracteres", 200_000_000L);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("documentos.ttl.segundos", 24 * 60 * 60));
+    }
+
+    // ========== OPERAÇÕES ==========
+
+    public Documento salvar(Integer usuario, String nome, InputStream pdf, long tamanhoBytes) throws IOException {
+        String texto = pdfReader.extrairTextoDePDF(pdf);
+        if (texto.trim().isEmpty()) {
+            throw new IllegalArgumentException("PDF vazio ou sem texto extraível");
+        }
+
+        if (texto.length() > maxCaracteres) {
+            throw new IllegalArgumentException("Documento muito longo para ser guardado");
+        }
+
+        Documento documento = new Documento(UUID.randomUUID().toString(), usuario, nome, texto,
+                tamanhoBytes, System.currentTimeMillis());
+        uploads.incrementAndGet();
+
+        synchronized (documentos) {
+            documentos.put(documento.getId(), new Entrada(documento));
+            caracteres += texto.length();
+            aplicarLimites();
+        }
+        return documento;
+    }
+
+    // null se o documento não existe, expirou ou é de outro usuário
+    public Documento buscar(Integer usuario, String id) {
+        synchronized (documentos) {
+            Entrada entrada = documentos.get(id);
+            long agora = System.currentTimeMillis();
+
+            if (entrada != null && agora - entrada.ultimoUso > ttlMillis) {
+                remover(id);
+                entrada = null;
+            }
+
+            if (entrada == null || !Objects.equals(entrada.documento.getUsuario(), usuario)) {
+                naoEncontrados.incrementAndGet();
+                return null;
+            }
+
+            entrada.ultimoUso = agora;
+            reusos.incrementAndGet();
+            return entrada.documento;
+        }
+    }
+
+    public boolean remover(Integer usuario, String id) {
+        synchronized (documentos) {
+            Entrada entrada = documentos.get(id);
+            if (entrada == null || !Objects.equals(entrada.documento.getUsuario(), usuario)) {
+                return false;
+            }
+            remover(id);
+            return true;
+        }
+    }
+
+    private void remover(String id) {
+        Entrada entrada = documentos.remove(id);
+        if (entrada != null) {
+            caracteres -= entrada.documento.getTexto().length();
+        }
+    }
+
+    // Os expirados saem primeiro; depois, os menos usados até caber nos limites
+    private void aplicarLimites() {
+        long agora = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entrada>> iterador = documentos.entrySet().iterator();
+
+        while (iterador.hasNext()) {
+            Entrada entrada = iterador.next().getValue();
+            boolean expirado = agora - entrada.ultimoUso > ttlMillis;
+            boolean excedente = documentos.size() > maxDocumentos || caracteres > maxCaracteres;
+
+            if (!expirado && !excedente) {
+                break;
+            }
+
+            iterador.remove();
+            caracteres -= entrada.documento.getTexto().length();
+            if (!expirado) {
+                removidosPorLimite.incrementAndGet();
+            }
+        }
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        synchronized (documentos) {
+            metricas.put("documentos", documentos.size());
+            metricas.put("caracteres", caracteres);
+        }
+        metricas.put("uploads", uploads.get());
+        metricas.put("reusos", reusos.get());
+        metricas.put("naoEncontrados", naoEncontrados.get());
+        metricas.put("removidosPorLimite", removidosPorLimite.get());
+        return metricas;
+    }
+
+    private static final class Entrada {
+        private final Documento documento;
+        private long ultimoUso;
+
+        private Entrada(Documento documento) {
+            this.documento = documento;
+            this.ultimoUso = documento.getCriadoEm();
+        }
+    }
+}
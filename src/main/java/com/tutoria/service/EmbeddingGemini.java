@@ -0,0 +1,111 @@
+package com.tutoria.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.EmbeddingLocal;
+import com.tutoria.util.FuncaoEmbedding;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Embedding pelo embedContent da API Gemini. Os timeouts são curtos: se a
+// chamada demorar ou falhar, o CacheSemantico cai para o EmbeddingLocal em
+// vez de segurar a pergunta do usuário.
+public class EmbeddingGemini implements FuncaoEmbedding {
+
+    private static final String URL_BASE_PADRAO = "https://generativelanguage.googleapis.com/v1beta";
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final String modelo;
+    private final String apiUrl;
+    private final OkHttpClient client;
+    private final Gson gson = new Gson();
+
+    public EmbeddingGemini(String apiKey) {
+        this.modelo = ConfigLoader.getProperty("ai.semantico.embedding.modelo", "text-embedding-004");
+
+        String urlBase = ConfigLoader.getProperty("ai.gemini.url.base", URL_BASE_PADRAO);
+        this.apiUrl = urlBase + "/models/" + modelo + ":embedContent?key=" + apiKey;
+
+        long timeoutMillis = ConfigLoader.getLongProperty("ai.semantico.embedding.timeout.ms", 3_000);
+        this.client = new OkHttpClient.Builder()
+                .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .callTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public String nome() {
+        return "gemini-" + modelo;
+    }
+
+    @Override
+    public CompletableFuture<float[]> embutirAsync(String texto) {
+        JsonObject parte = new JsonObject();
+        parte.addProperty("text", texto);
+        JsonArray partes = new JsonArray();
+        partes.add(parte);
+        JsonObject conteudo = new JsonObject();
+        conteudo.add("parts", partes);
+
+        JsonObject corpo = new JsonObject();
+        corpo.addProperty("model", "models/" + modelo);
+        corpo.add("content", conteudo);
+        corpo.addProperty("taskType", "SEMANTIC_SIMILARITY");
+
+        Request requisicao = new Request.Builder()
+                .url(apiUrl)
+                .post(RequestBody.create(gson.toJson(corpo), JSON))
+                .build();
+
+        CompletableFuture<float[]> futuro = new CompletableFuture<>();
+        Call call = client.newCall(requisicao);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                futuro.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    futuro.complete(extrairVetor(response));
+                } catch (Exception e) {
+                    futuro.completeExceptionally(e);
+                }
+            }
+        });
+
+        futuro.whenComplete((vetor, erro) -> {
+            if (futuro.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        return futuro;
+    }
+
+    private float[] extrairVetor(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new ErroAPIGeminiException(response.code(), "Erro no embedding Gemini: " + response.code() + " - " + response.message());
+        }
+
+        JsonObject json = gson.fromJson(response.body().string(), JsonObject.class);
+        JsonObject embedding = json.getAsJsonObject("embedding");
+        JsonArray valores = embedding != null ? embedding.getAsJsonArray("values") : null;
+        if (valores == null || valores.isEmpty()) {
+            throw new IOException("Resposta inválida do embedding Gemini");
+        }
+
+        float[] vetor = new float[valores.size()];
+        for (int i = 0; i < vetor.length; i++) {
+            vetor[i] = valores.get(i).getAsFloat();
+        }
+        return EmbeddingLocal.normalizar(vetor);
+    }
+}
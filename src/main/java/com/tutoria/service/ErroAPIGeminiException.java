@@ -0,0 +1,39 @@
+package com.tutoria.service;
+
+import java.io.IOException;
+
+// Resposta HTTP de erro vinda da API Gemini, com o status preservado para
+// que o limitador e as políticas de repetição possam classificá-la.
+public class ErroAPIGeminiException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final long retryAfterMillis;
+
+    public ErroAPIGeminiException(int status, String mensagem) {
+        this(status, mensagem, 0);
+    }
+
+    public ErroAPIGeminiException(int status, String mensagem, long retryAfterMillis) {
+        super(mensagem);
+        this.status = status;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    public boolean isSobrecarga() {
+        return status == 429 || status == 503;
+    }
+
+    public boolean isTransitorio() {
+        return status == 408 || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,8 @@
+package com.tutoria.service;
+
+public enum OperacaoIA {
+    RESUMO,
+    QUIZ,
+    FLASHCARDS,
+    DUVIDA
+}
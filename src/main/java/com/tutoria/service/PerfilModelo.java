@@ -0,0 +1,28 @@
+package com.tutoria.service;
+
+// Um nível de modelo escolhido pelo RoteadorModelos: qual modelo chamar,
+// quantos tokens de saída permitir e quanto esperar pela chamada inteira.
+public class PerfilModelo {
+
+    private final String nome;
+    private final String modelo;
+    private final int maxTokensSaida;
+    private final long timeoutMillis;
+
+    public PerfilModelo(String nome, String modelo, int maxTokensSaida, long timeoutMillis) {
+        this.nome = nome;
+        this.modelo = modelo;
+        this.maxTokensSaida = maxTokensSaida;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String getNome() { return nome; }
+    public String getModelo() { return modelo; }
+    public int getMaxTokensSaida() { return maxTokensSaida; }
+    public long getTimeoutMillis() { return timeoutMillis; }
+
+    // Entra na chave do cache: o timeout não muda a resposta, o resto sim
+    public String assinatura() {
+        return modelo + "|" + maxTokensSaida;
+    }
+}
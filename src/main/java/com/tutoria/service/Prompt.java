@@ -0,0 +1,132 @@
+package com.tutoria.service;
+
+import java.security.MessageDigest;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+
+// Prompt montado como uma sequência de pedaços (trechos fixos do template e o
+// texto do usuário) sem concatená-los. O ProvedorGemini escreve cada pedaço
+// direto no corpo da requisição e a chave do cache é calculada pedaço a
+// pedaço, então um documento grande não é copiado no caminho até a API.
+public final class Prompt {
+
+    private final String[] partes;
+
+    private Prompt(String[] partes) {
+        this.partes = partes;
+    }
+
+    public static Prompt de(String... partes) {
+        String[] copia = partes.clone();
+        for (int i = 0; i < copia.length; i++) {
+            if (copia[i] == null) {
+                copia[i] = "";
+            }
+        }
+        return new Prompt(copia);
+    }
+
+    // O system prompt vai no mesmo campo de texto, antes do prompt
+    public Prompt comPrefixo(String systemPrompt) {
+        if (systemPrompt == null || systemPrompt.isEmpty()) {
+            return this;
+        }
+
+        String[] novas = new String[partes.length + 2];
+        novas[0] = systemPrompt;
+        novas[1] = "\n\n";
+        System.arraycopy(partes, 0, novas, 2, partes.length);
+        return new Prompt(novas);
+    }
+
+    public List<String> partes() {
+        return Arrays.asList(partes);
+    }
+
+    public long comprimento() {
+        long total = 0;
+        for (String parte : partes) {
+            total += parte.length();
+        }
+        return total;
+    }
+
+    // ========== CHAVE DO CACHE ==========
+
+    // Alimenta o digest com o texto em NFC, espaços em branco colapsados em um
+    // só e sem espaços nas pontas, codificando em UTF-8 num buffer fixo.
+    // Só um pedaço que ainda não esteja em NFC é copiado para normalizar.
+    public void atualizarDigestNormalizado(MessageDigest digest) {
+        byte[] buffer = new byte[4096];
+        int pos = 0;
+        boolean iniciou = false;
+        boolean espacoPendente = false;
+
+        for (String original : partes) {
+            String parte = Normalizer.isNormalized(original, Normalizer.Form.NFC)
+                    ? original
+                    : Normalizer.normalize(original, Normalizer.Form.NFC);
+
+            for (int i = 0; i < parte.length(); i++) {
+                char c = parte.charAt(i);
+
+                if (ehEspaco(c)) {
+                    espacoPendente = iniciou;
+                    continue;
+                }
+
+                if (buffer.length - pos < 5) {
+                    digest.update(buffer, 0, pos);
+                    pos = 0;
+                }
+
+                if (espacoPendente) {
+                    buffer[pos++] = ' ';
+                    espacoPendente = false;
+                }
+                iniciou = true;
+
+                int codePoint = c;
+                if (Character.isHighSurrogate(c) && i + 1 < parte.length() && Character.isLowSurrogate(parte.charAt(i + 1))) {
+                    codePoint = Character.toCodePoint(c, parte.charAt(++i));
+                } else if (Character.isSurrogate(c)) {
+                    codePoint = '?';
+                }
+                pos = codificarUtf8(codePoint, buffer, pos);
+            }
+        }
+
+        digest.update(buffer, 0, pos);
+    }
+
+    // Mesmo conjunto do \s das expressões regulares
+    private static boolean ehEspaco(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int codificarUtf8(int codePoint, byte[] buffer, int pos) {
+        if (codePoint < 0x80) {
+            buffer[pos++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[pos++] = (byte) (0xC0 | (codePoint >> 6));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[pos++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[pos++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return pos;
+    }
+
+    // Materializa o texto inteiro; só para logs e provedores que precisem de String
+    @Override
+    public String toString() {
+        return String.join("", partes);
+    }
+}
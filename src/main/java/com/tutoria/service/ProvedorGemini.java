@@ -0,0 +1,313 @@
+package com.tutoria.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.EsquemaJson;
+import okhttp3.*;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Provedor que fala com a API REST do Gemini (generateContent e
+// streamGenerateContent). ai.gemini.url.base permite apontar para o
+// ServidorGeminiSimulado em testes de carga.
+public class ProvedorGemini implements ProvedorIA {
+
+    private static final String URL_BASE_PADRAO = "https://generativelanguage.googleapis.com/v1beta";
+
+    private final String urlBase;
+    private final String apiKey;
+    private final OkHttpClient client;
+    private final Gson gson;
+    private final Map<PerfilModelo, byte[]> prefixosCorpo = new ConcurrentHashMap<>();
+    private final Map<PerfilModelo, Map<EsquemaJson, byte[]>> prefixosComEsquema = new ConcurrentHashMap<>();
+
+    // ========== CONSTRUTOR ==========
+
+    public ProvedorGemini(String apiKey) {
+        this.urlBase = ConfigLoader.getProperty("ai.gemini.url.base", URL_BASE_PADRAO);
+        this.apiKey = apiKey;
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(ConfigLoader.getIntProperty("ai.http.max.requisicoes", 256));
+        dispatcher.setMaxRequestsPerHost(ConfigLoader.getIntProperty("ai.http.max.requisicoes.host", 256));
+
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .build();
+
+        this.gson = new Gson();
+    }
+
+    // O modelo e o maxOutputTokens vêm do PerfilModelo e entram na chave por ele
+    @Override
+    public String assinatura() {
+        return "gemini|" + montarGenerationConfig(null);
+    }
+
+    // ========== CHAMADAS ==========
+
+    @Override
+    public CompletableFuture<RespostaIA> gerarAsync(Prompt prompt, String systemPrompt, EsquemaJson esquemaResposta,
+                                                    PerfilModelo perfil) {
+        CompletableFuture<RespostaIA> futuro = new CompletableFuture<>();
+        Call call = novaChamada(perfil, ":generateContent?key=", prompt, systemPrompt, esquemaResposta);
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                futuro.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    futuro.complete(extrairResposta(response));
+                } catch (Exception e) {
+                    futuro.completeExceptionally(e);
+                }
+            }
+        });
+
+        futuro.whenComplete((resultado, erro) -> {
+            if (futuro.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        return futuro;
+    }
+
+    @Override
+    public CompletableFuture<RespostaIA> gerarStreamAsync(Prompt prompt, String systemPrompt, EsquemaJson esquemaResposta,
+                                                          PerfilModelo perfil, Consumer<String> aoReceberTrecho) {
+        CompletableFuture<RespostaIA> futuro = new CompletableFuture<>();
+        Call call = novaChamada(perfil, ":streamGenerateContent?alt=sse&key=", prompt, systemPrompt, esquemaResposta);
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                futuro.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        throw erroDaAPI(response);
+                    }
+
+                    StringBuilder completo = new StringBuilder();
+                    String motivoFim = null;
+                    BufferedSource source = response.body().source();
+                    String linha;
+
+                    while (!futuro.isDone() && (linha = source.readUtf8Line()) != null) {
+                        if (!linha.startsWith("data:")) {
+                            continue;
+                        }
+
+                        JsonObject evento = gson.fromJson(linha.substring(5).trim(), JsonObject.class);
+                        String trecho = textoDoCandidato(evento);
+                        if (!trecho.isEmpty()) {
+                            completo.append(trecho);
+                            aoReceberTrecho.accept(trecho);
+                        }
+
+                        String motivo = motivoFim(evento);
+                        if (motivo != null) {
+                            motivoFim = motivo;
+                        }
+                    }
+
+                    if (completo.length() == 0) {
+                        throw new IOException("Resposta inválida da API Gemini");
+                    }
+
+                    futuro.complete(new RespostaIA(completo.toString(), motivoFim));
+                } catch (Exception e) {
+                    futuro.completeExceptionally(e);
+                }
+            }
+        });
+
+        futuro.whenComplete((resultado, erro) -> {
+            if (futuro.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        return futuro;
+    }
+
+    // finishReason só vem no último evento do stream (e na resposta inteira)
+    private String motivoFim(JsonObject resposta) {
+        JsonArray candidates = resposta.getAsJsonArray("candidates");
+        if (candidates == null || candidates.size() == 0) {
+            return null;
+        }
+
+        JsonObject candidate = candidates.get(0).getAsJsonObject();
+        return candidate.has("finishReason") ? candidate.get("finishReason").getAsString() : null;
+    }
+
+    private String textoDoCandidato(JsonObject resposta) {
+        JsonArray candidates = resposta.getAsJsonArray("candidates");
+        if (candidates == null || candidates.size() == 0) {
+            return "";
+        }
+
+        JsonObject contentObj = candidates.get(0).getAsJsonObject().getAsJsonObject("content");
+        if (contentObj == null || contentObj.getAsJsonArray("parts") == null) {
+            return "";
+        }
+
+        StringBuilder texto = new StringBuilder();
+        for (var parte : contentObj.getAsJsonArray("parts")) {
+            JsonObject parteObj = parte.getAsJsonObject();
+            if (parteObj.has("text")) {
+                texto.append(parteObj.get("text").getAsString());
+            }
+        }
+        return texto.toString();
+    }
+
+    // ========== MONTAGEM E LEITURA ==========
+
+    // O timeout do perfil vale para a chamada inteira, do envio ao último
+    // trecho do stream; os timeouts do cliente continuam valendo por leitura
+    private Call novaChamada(PerfilModelo perfil, String metodo, Prompt prompt, String systemPrompt,
+                             EsquemaJson esquemaResposta) {
+        String url = urlBase + "/models/" + perfil.getModelo() + metodo + apiKey;
+        Call call = client.newCall(montarRequisicao(url, perfil, prompt, systemPrompt, esquemaResposta));
+        call.timeout().timeout(perfil.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    private Request montarRequisicao(String url, PerfilModelo perfil, Prompt prompt, String systemPrompt,
+                                     EsquemaJson esquemaResposta) {
+        byte[] prefixo = esquemaResposta == null
+                ? prefixosCorpo.computeIfAbsent(perfil, p -> serializarPrefixoCorpo(p, null))
+                : prefixosComEsquema.computeIfAbsent(perfil, p -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(esquemaResposta, esquema -> serializarPrefixoCorpo(perfil, esquema));
+
+        return new Request.Builder()
+                .url(url)
+                .header("content-type", "application/json")
+                .post(new CorpoRequisicaoGemini(prefixo, prompt.comPrefixo(systemPrompt)))
+                .build();
+    }
+
+    // Serializa uma vez a parte fixa do corpo, até a aspa que abre o texto do
+    // prompt; a ordem dos campos é a mesma de quando o corpo era montado inteiro.
+    // Com esquema, o generationConfig pede JSON (responseMimeType/responseSchema).
+    private byte[] serializarPrefixoCorpo(PerfilModelo perfil, EsquemaJson esquemaResposta) {
+        JsonObject generationConfig = montarGenerationConfig(perfil);
+        if (esquemaResposta != null) {
+            generationConfig.addProperty("responseMimeType", "application/json");
+            generationConfig.add("responseSchema", esquemaResposta.paraJson());
+        }
+
+        JsonObject requestBody = new JsonObject();
+        requestBody.add("generationConfig", generationConfig);
+
+        JsonArray safetySettings = new JsonArray();
+        String[] categories = {
+                "HARM_CATEGORY_HARASSMENT",
+                "HARM_CATEGORY_HATE_SPEECH",
+                "HARM_CATEGORY_SEXUALLY_EXPLICIT",
+                "HARM_CATEGORY_DANGEROUS_CONTENT"
+        };
+
+        for (String category : categories) {
+            JsonObject setting = new JsonObject();
+            setting.addProperty("category", category);
+            setting.addProperty("threshold", "BLOCK_ONLY_HIGH");
+            safetySettings.add(setting);
+        }
+
+        requestBody.add("safetySettings", safetySettings);
+
+        JsonArray contents = new JsonArray();
+        JsonObject content = new JsonObject();
+        content.addProperty("role", "user");
+
+        JsonArray parts = new JsonArray();
+        JsonObject textPart = new JsonObject();
+        textPart.addProperty("text", "");
+        parts.add(textPart);
+        content.add("parts", parts);
+        contents.add(content);
+        requestBody.add("contents", contents);
+
+        // Corta o valor vazio e o fechamento, que o CorpoRequisicaoGemini escreve depois do texto
+        String json = gson.toJson(requestBody);
+        String fechamento = "\"}]}]}";
+        if (!json.endsWith("\"" + fechamento)) {
+            throw new IllegalStateException("Formato inesperado do corpo da requisição: " + json);
+        }
+        return json.substring(0, json.length() - fechamento.length()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Sem perfil, só os parâmetros comuns (usado na assinatura)
+    private JsonObject montarGenerationConfig(PerfilModelo perfil) {
+        JsonObject generationConfig = new JsonObject();
+        generationConfig.addProperty("temperature", 0.7);
+        if (perfil != null) {
+            generationConfig.addProperty("maxOutputTokens", perfil.getMaxTokensSaida());
+        }
+        return generationConfig;
+    }
+
+    private IOException erroDaAPI(Response response) throws IOException {
+        String errorBody = response.body() != null ? response.body().string() : "Sem detalhes";
+        return new ErroAPIGeminiException(response.code(),
+                "Erro na API Gemini: " + response.code() + " - " + response.message() + "\nDetalhes: " + errorBody,
+                retryAfterMillis(response.header("Retry-After")));
+    }
+
+    private long retryAfterMillis(String cabecalho) {
+        if (cabecalho == null) {
+            return 0;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(cabecalho.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private RespostaIA extrairResposta(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw erroDaAPI(response);
+        }
+
+        String responseBody = response.body().string();
+        JsonObject jsonResponse = gson.fromJson(responseBody, JsonObject.class);
+
+        JsonArray candidates = jsonResponse.getAsJsonArray("candidates");
+        if (candidates != null && candidates.size() > 0) {
+            JsonObject candidate = candidates.get(0).getAsJsonObject();
+            JsonObject contentObj = candidate.getAsJsonObject("content");
+            JsonArray partsArray = contentObj.getAsJsonArray("parts");
+            if (partsArray != null && partsArray.size() > 0) {
+                return new RespostaIA(partsArray.get(0).getAsJsonObject().get("text").getAsString(),
+                        motivoFim(jsonResponse));
+            }
+        }
+
+        throw new IOException("Resposta inválida da API Gemini");
+    }
+}
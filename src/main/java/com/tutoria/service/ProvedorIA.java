@@ -0,0 +1,28 @@
+package com.tutoria.service;
+
+import com.tutoria.util.EsquemaJson;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Backend de geração de texto usado pelo AIService. Cache, coalescência,
+// repetição, disjuntor e limite ficam no AIService e valem para qualquer provedor.
+public interface ProvedorIA {
+
+    // esquemaResposta, quando não é null, pede uma resposta JSON nesse formato.
+    // Um provedor sem saída estruturada pode ignorá-lo; o AIService valida a
+    // resposta contra o esquema de qualquer forma.
+    // perfil traz o modelo, o limite de tokens de saída e o timeout da chamada,
+    // escolhidos pelo RoteadorModelos.
+    CompletableFuture<RespostaIA> gerarAsync(Prompt prompt, String systemPrompt, EsquemaJson esquemaResposta,
+                                             PerfilModelo perfil);
+
+    // Repassa cada trecho a aoReceberTrecho assim que chega e completa com o texto inteiro
+    CompletableFuture<RespostaIA> gerarStreamAsync(Prompt prompt, String systemPrompt, EsquemaJson esquemaResposta,
+                                                   PerfilModelo perfil, Consumer<String> aoReceberTrecho);
+
+    // Identifica o provedor e os parâmetros de geração que não dependem do
+    // perfil; entra na chave do cache junto com PerfilModelo.assinatura() para
+    // que respostas de configurações diferentes não se misturem
+    String assinatura();
+}
@@ -0,0 +1,121 @@
+package com.tutoria.service;
+
+import com.tutoria.util.CacheWTinyLFU;
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.DivisorTexto;
+import com.tutoria.util.Hash;
+import com.tutoria.util.IndiceBM25;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Escolhe o contexto de uma pergunta sobre um documento longo: o texto é
+// dividido em trechos, indexado com BM25 e só os k trechos mais relevantes
+// para a pergunta vão para o prompt, na ordem em que aparecem no documento.
+// Documentos curtos seguem inteiros. O índice fica em cache pela chave do
+// documento, então as perguntas seguintes sobre o mesmo texto só consultam.
+public class RecuperadorTrechos {
+
+    private static final String SEPARADOR = "\n\n[...]\n\n";
+
+    private final boolean habilitado;
+    private final int minCaracteres;
+    private final int tamanhoTrecho;
+    private final int topK;
+    private final CacheWTinyLFU<String, IndiceBM25> indices;
+
+    private final AtomicLong consultas = new AtomicLong();
+    private final AtomicLong documentosInteiros = new AtomicLong();
+    private final AtomicLong indicesConstruidos = new AtomicLong();
+    private final AtomicLong nanosConstrucao = new AtomicLong();
+    private final AtomicLong nanosBusca = new AtomicLong();
+    private final AtomicLong semTermosEmComum = new AtomicLong();
+    private final AtomicLong caracteresDocumentos = new AtomicLong();
+    private final AtomicLong caracteresEnviados = new AtomicLong();
+
+    public RecuperadorTrechos() {
+        this.habilitado = ConfigLoader.getBooleanProperty("ai.recuperacao.habilitada", true);
+        this.minCaracteres = ConfigLoader.getIntProperty("ai.recuperacao.min.caracteres", 12_000);
+        this.tamanhoTrecho = ConfigLoader.getIntProperty("ai.recuperacao.trecho.caracteres", 1_500);
+        this.topK = Math.max(1, ConfigLoader.getIntProperty("ai.recuperacao.top.k", 6));
+        this.indices = new CacheWTinyLFU<>(
+                ConfigLoader.getIntProperty("ai.recuperacao.cache.max.indices", 200),
+                ConfigLoader.getLongProperty("ai.recuperacao.cache.max.bytes", 256L * 1024 * 1024),
+                TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("ai.recuperacao.cache.ttl.segundos", 60 * 60)),
+                IndiceBM25::bytesEstimados);
+    }
+
+    // chave identifica o texto (o documentId, por exemplo); null usa o hash do texto
+    public String contexto(String chave, String texto, String pergunta) {
+        if (!habilitado || texto.length() <= minCaracteres) {
+            documentosInteiros.incrementAndGet();
+            return texto;
+        }
+
+        consultas.incrementAndGet();
+        IndiceBM25 indice = indice(chave != null ? chave : Hash.sha256(texto), texto);
+
+        long inicio = System.nanoTime();
+        int[] selecionados = indice.buscar(pergunta, topK);
+        nanosBusca.addAndGet(System.nanoTime() - inicio);
+
+        // Sem nenhum termo da pergunta no texto, vai o começo do documento
+        if (selecionados.length == 0) {
+            semTermosEmComum.incrementAndGet();
+            selecionados = new int[Math.min(topK, indice.getTrechos())];
+            Arrays.setAll(selecionados, i -> i);
+        }
+
+        Arrays.sort(selecionados);
+        StringBuilder contexto = new StringBuilder();
+        for (int trecho : selecionados) {
+            if (!contexto.isEmpty()) {
+                contexto.append(SEPARADOR);
+            }
+            contexto.append(indice.trecho(trecho));
+        }
+
+        caracteresDocumentos.addAndGet(texto.length());
+        caracteresEnviados.addAndGet(contexto.length());
+        return contexto.toString();
+    }
+
+    private IndiceBM25 indice(String chave, String texto) {
+        IndiceBM25 indice = indices.buscar(chave);
+        if (indice != null) {
+            return indice;
+        }
+
+        long inicio = System.nanoTime();
+        indice = new IndiceBM25(DivisorTexto.dividir(texto, tamanhoTrecho));
+        nanosConstrucao.addAndGet(System.nanoTime() - inicio);
+        indicesConstruidos.incrementAndGet();
+
+        indices.guardar(chave, indice);
+        return indice;
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public Map<String, Object> metricas() {
+        long construidos = indicesConstruidos.get();
+        long total = consultas.get();
+        long documentos = caracteresDocumentos.get();
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("habilitada", habilitado);
+        metricas.put("consultas", total);
+        metricas.put("documentosInteiros", documentosInteiros.get());
+        metricas.put("semTermosEmComum", semTermosEmComum.get());
+        metricas.put("indicesEmCache", indices.tamanho());
+        metricas.put("bytesIndices", indices.peso());
+        metricas.put("indicesConstruidos", construidos);
+        metricas.put("construcaoMediaMs", construidos == 0 ? 0.0 : nanosConstrucao.get() / 1e6 / construidos);
+        metricas.put("buscaMediaMs", total == 0 ? 0.0 : nanosBusca.get() / 1e6 / total);
+        metricas.put("fracaoEnviada", documentos == 0 ? 0.0 : (double) caracteresEnviados.get() / documentos);
+        return metricas;
+    }
+}
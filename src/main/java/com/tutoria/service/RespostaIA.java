@@ -0,0 +1,27 @@
+package com.tutoria.service;
+
+// Texto gerado e o motivo de término informado pelo provedor (finishReason
+// no Gemini). motivoFim é null quando não se sabe, como num acerto de cache.
+public class RespostaIA {
+
+    private final String texto;
+    private final String motivoFim;
+
+    public RespostaIA(String texto, String motivoFim) {
+        this.texto = texto;
+        this.motivoFim = motivoFim;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public String getMotivoFim() {
+        return motivoFim;
+    }
+
+    // A geração parou no limite de tokens de saída, não no fim natural
+    public boolean isTruncada() {
+        return "MAX_TOKENS".equals(motivoFim);
+    }
+}
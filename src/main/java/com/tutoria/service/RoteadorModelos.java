@@ -0,0 +1,132 @@
+package com.tutoria.service;
+
+import com.tutoria.util.ConfigLoader;
+import com.tutoria.util.JanelaLatencias;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Escolhe o perfil de modelo de cada chamada pela operação, pelo tamanho da
+// entrada e pela quantidade de itens pedida:
+//   rapida - entradas curtas (perguntas sem contexto), modelo de menor latência
+//   pesada - documentos longos ou muitos itens, mais tokens de saída e mais tempo
+//   padrao - o resto
+// Os limites de cada operação vêm do ConfigLoader (ai.rota.<operacao>.*).
+// Também guarda as latências por rota (operação/perfil) para conferir o efeito.
+public class RoteadorModelos {
+
+    private final PerfilModelo rapida;
+    private final PerfilModelo padrao;
+    private final PerfilModelo pesada;
+    private final Map<OperacaoIA, Regra> regras = new LinkedHashMap<>();
+    private final Map<String, MetricasRota> metricas = new ConcurrentHashMap<>();
+
+    public RoteadorModelos() {
+        String modeloPadrao = ConfigLoader.getProperty("ai.gemini.modelo", "gemini-2.0-flash");
+
+        this.rapida = perfil("rapida", "gemini-2.0-flash-lite", 2048, 20_000);
+        this.padrao = perfil("padrao", modeloPadrao, 4096, 60_000);
+        this.pesada = perfil("pesada", modeloPadrao, 8192, 180_000);
+
+        regras.put(OperacaoIA.DUVIDA, regra("duvida", 2_000, 30_000, Integer.MAX_VALUE));
+        regras.put(OperacaoIA.RESUMO, regra("resumo", 0, 30_000, Integer.MAX_VALUE));
+        regras.put(OperacaoIA.QUIZ, regra("quiz", 0, 30_000, 15));
+        regras.put(OperacaoIA.FLASHCARDS, regra("flashcards", 0, 30_000, 30));
+    }
+
+    private static PerfilModelo perfil(String nome, String modelo, int maxTokens, long timeoutMillis) {
+        String prefixo = "ai.rota." + nome + ".";
+        return new PerfilModelo(nome,
+                ConfigLoader.getProperty(prefixo + "modelo", modelo),
+                ConfigLoader.getIntProperty(prefixo + "max.tokens", maxTokens),
+                ConfigLoader.getLongProperty(prefixo + "timeout.ms", timeoutMillis));
+    }
+
+    private static Regra regra(String operacao, int rapidaMaxCaracteres, int pesadaMinCaracteres, int pesadaMinItens) {
+        String prefixo = "ai.rota." + operacao + ".";
+        return new Regra(
+                ConfigLoader.getIntProperty(prefixo + "rapida.max.caracteres", rapidaMaxCaracteres),
+                ConfigLoader.getIntProperty(prefixo + "pesada.min.caracteres", pesadaMinCaracteres),
+                ConfigLoader.getIntProperty(prefixo + "pesada.min.itens", pesadaMinItens));
+    }
+
+    public PerfilModelo escolher(OperacaoIA operacao, long caracteres, int itens) {
+        Regra regra = regras.get(operacao);
+        if (regra == null) {
+            return padrao;
+        }
+
+        if (caracteres >= regra.pesadaMinCaracteres || itens >= regra.pesadaMinItens) {
+            return pesada;
+        }
+
+        if (caracteres <= regra.rapidaMaxCaracteres) {
+            return rapida;
+        }
+
+        return padrao;
+    }
+
+    // Muda sempre que o modelo ou o limite de tokens de algum perfil mudar
+    public String assinatura() {
+        return rapida.assinatura() + "," + padrao.assinatura() + "," + pesada.assinatura();
+    }
+
+    // ========== MÉTRICAS POR ROTA ==========
+
+    public void registrar(OperacaoIA operacao, PerfilModelo perfil, long duracaoNanos, boolean sucesso) {
+        MetricasRota rota = metricas.computeIfAbsent(operacao.name().toLowerCase() + "/" + perfil.getNome(),
+                chave -> new MetricasRota(perfil));
+        rota.chamadas.incrementAndGet();
+        if (sucesso) {
+            rota.latencias.registrar(duracaoNanos);
+        } else {
+            rota.falhas.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> rotas = new LinkedHashMap<>();
+        metricas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entrada -> {
+                    MetricasRota rota = entrada.getValue();
+                    Map<String, Object> dados = new LinkedHashMap<>();
+                    dados.put("modelo", rota.perfil.getModelo());
+                    dados.put("maxTokens", rota.perfil.getMaxTokensSaida());
+                    dados.put("chamadas", rota.chamadas.get());
+                    dados.put("falhas", rota.falhas.get());
+                    dados.put("p50Ms", rota.latencias.percentilMillis(50));
+                    dados.put("p95Ms", rota.latencias.percentilMillis(95));
+                    rotas.put(entrada.getKey(), dados);
+                });
+        return rotas;
+    }
+
+    // ========== TIPOS ==========
+
+    private static final class Regra {
+        private final int rapidaMaxCaracteres;
+        private final int pesadaMinCaracteres;
+        private final int pesadaMinItens;
+
+        private Regra(int rapidaMaxCaracteres, int pesadaMinCaracteres, int pesadaMinItens) {
+            this.rapidaMaxCaracteres = rapidaMaxCaracteres;
+            this.pesadaMinCaracteres = pesadaMinCaracteres;
+            this.pesadaMinItens = pesadaMinItens;
+        }
+    }
+
+    private static final class MetricasRota {
+        private final PerfilModelo perfil;
+        private final AtomicLong chamadas = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        private final JanelaLatencias latencias = new JanelaLatencias(512);
+
+        private MetricasRota(PerfilModelo perfil) {
+            this.perfil = perfil;
+        }
+    }
+}
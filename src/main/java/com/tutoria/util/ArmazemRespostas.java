@@ -0,0 +1,436 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+// Armazém de respostas em disco, somente-anexação, com o arquivo mapeado em
+// memória para leitura. Cada registro tem um cabeçalho de tamanho fixo:
+//
+//   magic(4) | hash(32) | expiraEm(8) | tamanhoValor(4) | crcValor(4) | crcCabecalho(4) | valor
+//
+// Na abertura só os cabeçalhos são lidos (O(entradas)); um registro final
+// incompleto, deixado por uma queda no meio da escrita, é descartado, e um
+// cabeçalho corrompido no meio do arquivo é pulado até o próximo registro
+// válido. O CRC do valor é conferido a cada leitura. Um registro com
+// expiraEm = 0 funciona como remoção da chave.
+public final class ArmazemRespostas implements AutoCloseable {
+
+    private static final int MAGIC = 0x54494131;
+    private static final int TAMANHO_HASH = 32;
+    private static final int TAMANHO_CABECALHO = 4 + TAMANHO_HASH + 8 + 4 + 4 + 4;
+    private static final int INTERVALO_VERIFICACAO_EXPIRADAS = 256;
+
+    private final Path arquivo;
+    private final long maxBytes;
+    private final double proporcaoMaximaMortos;
+
+    private final Map<String, Posicao> indice = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private long tamanhoArquivo;
+    private final AtomicLong bytesMortos = new AtomicLong();
+    private int escritasDesdeVerificacao;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+    private final AtomicLong corrompidas = new AtomicLong();
+    private final AtomicLong compactacoes = new AtomicLong();
+
+    public ArmazemRespostas(Path diretorio, long maxBytes, double proporcaoMaximaMortos) throws IOException {
+        if (maxBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamanho máximo do armazém deve ser menor que 2GB");
+        }
+
+        Files.createDirectories(diretorio);
+        this.arquivo = diretorio.resolve("respostas.log");
+        this.maxBytes = maxBytes;
+        this.proporcaoMaximaMortos = proporcaoMaximaMortos;
+
+        abrir();
+        carregarIndice();
+
+        if (precisaCompactar()) {
+            compactar();
+        }
+    }
+
+    // ========== OPERAÇÕES ==========
+
+    public String buscar(String chaveHex) {
+        byte[] valor = buscarBytes(chaveHex);
+        return valor != null ? new String(valor, StandardCharsets.UTF_8) : null;
+    }
+
+    // Para valores que já chegam codificados (por exemplo, texto comprimido)
+    public byte[] buscarBytes(String chaveHex) {
+        lock.readLock().lock();
+        try {
+            Posicao posicao = indice.get(chaveHex);
+
+            if (posicao == null || posicao.expirada()) {
+                faltas.incrementAndGet();
+                return null;
+            }
+
+            byte[] valor = new byte[posicao.tamanho];
+            lerMapeado(posicao.offsetValor, valor);
+
+            if (crc(valor, 0, valor.length) != posicao.crc) {
+                if (indice.remove(chaveHex, posicao)) {
+                    bytesMortos.addAndGet(TAMANHO_CABECALHO + posicao.tamanho);
+                }
+                corrompidas.incrementAndGet();
+                faltas.incrementAndGet();
+                return null;
+            }
+
+            acertos.incrementAndGet();
+            return valor;
+        } catch (IOException e) {
+            faltas.incrementAndGet();
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void guardar(String chaveHex, String valor, long ttlMillis) throws IOException {
+        guardarBytes(chaveHex, valor.getBytes(StandardCharsets.UTF_8), ttlMillis);
+    }
+
+    public void guardarBytes(String chaveHex, byte[] valor, long ttlMillis) throws IOException {
+        anexar(chaveHex, valor, System.currentTimeMillis() + ttlMillis);
+    }
+
+    public void remover(String chaveHex) throws IOException {
+        if (indice.containsKey(chaveHex)) {
+            anexar(chaveHex, new byte[0], 0);
+        }
+    }
+
+    private void anexar(String chaveHex, byte[] valor, long expiraEm) throws IOException {
+        byte[] hash = HexFormat.of().parseHex(chaveHex);
+        if (hash.length != TAMANHO_HASH) {
+            throw new IllegalArgumentException("Chave deve ser um SHA-256 em hexadecimal");
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (tamanhoArquivo + TAMANHO_CABECALHO + valor.length > maxBytes) {
+                compactar();
+                if (tamanhoArquivo + TAMANHO_CABECALHO + valor.length > maxBytes) {
+                    // Sem espaço nem para a remoção: a chave sai do índice e uma
+                    // nova compactação a tira também do arquivo
+                    if (expiraEm == 0 && indice.remove(chaveHex) != null) {
+                        compactar();
+                    }
+                    return;
+                }
+            }
+
+            int crcValor = crc(valor, 0, valor.length);
+            ByteBuffer registro = ByteBuffer.allocate(TAMANHO_CABECALHO + valor.length);
+            escreverCabecalho(registro, hash, expiraEm, valor.length, crcValor);
+            registro.put(valor);
+            registro.flip();
+
+            long offset = tamanhoArquivo;
+            while (registro.hasRemaining()) {
+                canal.write(registro, offset + registro.position());
+            }
+            canal.force(false);
+            tamanhoArquivo += TAMANHO_CABECALHO + valor.length;
+
+            Posicao anterior;
+            if (expiraEm == 0) {
+                anterior = indice.remove(chaveHex);
+                bytesMortos.addAndGet(TAMANHO_CABECALHO);
+            } else {
+                anterior = indice.put(chaveHex, new Posicao(offset + TAMANHO_CABECALHO, valor.length, crcValor, expiraEm));
+            }
+            if (anterior != null) {
+                bytesMortos.addAndGet(TAMANHO_CABECALHO + anterior.tamanho);
+            }
+
+            if (++escritasDesdeVerificacao >= INTERVALO_VERIFICACAO_EXPIRADAS) {
+                escritasDesdeVerificacao = 0;
+                removerExpiradasDoIndice();
+            }
+
+            if (precisaCompactar()) {
+                compactar();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== COMPACTAÇÃO ==========
+
+    // Reescreve apenas os registros vivos em um arquivo temporário e o troca
+    // pelo atual com um move atômico; se o processo cair no meio, o arquivo
+    // original continua íntegro. Se o move falhar, o original é reaberto e o
+    // índice continua apontando para ele.
+    public void compactar() throws IOException {
+        lock.writeLock().lock();
+        try {
+            removerExpiradasDoIndice();
+
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".compactando");
+            Map<String, Posicao> novoIndice = new ConcurrentHashMap<>();
+            long offset = 0;
+
+            try (FileChannel destino = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+                for (Map.Entry<String, Posicao> entrada : indice.entrySet()) {
+                    Posicao posicao = entrada.getValue();
+                    byte[] valor = new byte[posicao.tamanho];
+                    lerMapeado(posicao.offsetValor, valor);
+
+                    if (crc(valor, 0, valor.length) != posicao.crc) {
+                        corrompidas.incrementAndGet();
+                        continue;
+                    }
+
+                    ByteBuffer registro = ByteBuffer.allocate(TAMANHO_CABECALHO + valor.length);
+                    escreverCabecalho(registro, HexFormat.of().parseHex(entrada.getKey()),
+                            posicao.expiraEm, posicao.tamanho, posicao.crc);
+                    registro.put(valor);
+                    registro.flip();
+
+                    while (registro.hasRemaining()) {
+                        destino.write(registro);
+                    }
+
+                    novoIndice.put(entrada.getKey(),
+                            new Posicao(offset + TAMANHO_CABECALHO, posicao.tamanho, posicao.crc, posicao.expiraEm));
+                    offset += TAMANHO_CABECALHO + posicao.tamanho;
+                }
+
+                destino.force(true);
+            }
+
+            canal.close();
+            boolean movido = false;
+            try {
+                Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                movido = true;
+                sincronizarDiretorio();
+            } finally {
+                abrir();
+                if (!movido) {
+                    Files.deleteIfExists(temporario);
+                }
+            }
+
+            indice.clear();
+            indice.putAll(novoIndice);
+            bytesMortos.set(0);
+            compactacoes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean precisaCompactar() {
+        return tamanhoArquivo > 0 && (double) bytesMortos.get() / tamanhoArquivo > proporcaoMaximaMortos;
+    }
+
+    private void removerExpiradasDoIndice() {
+        indice.entrySet().removeIf(entrada -> {
+            if (entrada.getValue().expirada()) {
+                bytesMortos.addAndGet(TAMANHO_CABECALHO + entrada.getValue().tamanho);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    // ========== ARQUIVO ==========
+
+    private void abrir() throws IOException {
+        canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        tamanhoArquivo = canal.size();
+        mapa = null;
+    }
+
+    // Sem isso, o rename da compactação pode se perder numa queda mesmo com o
+    // arquivo novo já gravado. Alguns sistemas (Windows) não abrem diretórios.
+    private void sincronizarDiretorio() {
+        try (FileChannel diretorio = FileChannel.open(arquivo.getParent(), StandardOpenOption.READ)) {
+            diretorio.force(true);
+        } catch (IOException e) {
+            // melhor esforço
+        }
+    }
+
+    private void carregarIndice() throws IOException {
+        MappedByteBuffer leitura = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanhoArquivo);
+        long agora = System.currentTimeMillis();
+        byte[] cabecalho = new byte[TAMANHO_CABECALHO];
+        byte[] hash = new byte[TAMANHO_HASH];
+        int posicao = 0;
+
+        while (posicao + TAMANHO_CABECALHO <= tamanhoArquivo) {
+            leitura.get(posicao, cabecalho);
+            ByteBuffer buffer = ByteBuffer.wrap(cabecalho);
+
+            int magic = buffer.getInt();
+            buffer.get(hash);
+            long expiraEm = buffer.getLong();
+            int tamanho = buffer.getInt();
+            int crcValor = buffer.getInt();
+            int crcCabecalho = buffer.getInt();
+
+            if (magic != MAGIC || crc(cabecalho, 0, TAMANHO_CABECALHO - 4) != crcCabecalho || tamanho < 0) {
+                // Cabeçalho corrompido: os registros válidos depois dele são
+                // preservados; se não houver nenhum, é lixo no fim do arquivo
+                int proximo = proximoCabecalhoValido(leitura, posicao + 1, cabecalho);
+                if (proximo < 0) {
+                    break;
+                }
+
+                System.out.println("⚠️ Armazém de respostas: pulando " + (proximo - posicao)
+                        + " bytes corrompidos na posição " + posicao);
+                corrompidas.incrementAndGet();
+                bytesMortos.addAndGet(proximo - posicao);
+                posicao = proximo;
+                continue;
+            }
+
+            // Cabeçalho íntegro mas valor além do fim: só pode ser o último
+            // registro, interrompido no meio da escrita
+            if (posicao + TAMANHO_CABECALHO + (long) tamanho > tamanhoArquivo) {
+                break;
+            }
+
+            String chave = HexFormat.of().formatHex(hash);
+            Posicao anterior;
+            if (expiraEm <= agora) {
+                anterior = indice.remove(chave);
+                bytesMortos.addAndGet(TAMANHO_CABECALHO + tamanho);
+            } else {
+                anterior = indice.put(chave, new Posicao(posicao + TAMANHO_CABECALHO, tamanho, crcValor, expiraEm));
+            }
+            if (anterior != null) {
+                bytesMortos.addAndGet(TAMANHO_CABECALHO + anterior.tamanho);
+            }
+
+            posicao += TAMANHO_CABECALHO + tamanho;
+        }
+
+        if (posicao < tamanhoArquivo) {
+            System.out.println("⚠️ Armazém de respostas: descartando " + (tamanhoArquivo - posicao)
+                    + " bytes de um registro incompleto no fim do arquivo");
+            canal.truncate(posicao);
+            canal.force(true);
+            tamanhoArquivo = posicao;
+        }
+
+        mapa = leitura;
+    }
+
+    // Posição do próximo cabeçalho com magic e CRC válidos, ou -1
+    private int proximoCabecalhoValido(MappedByteBuffer leitura, int inicio, byte[] cabecalho) {
+        for (int posicao = inicio; posicao + TAMANHO_CABECALHO <= tamanhoArquivo; posicao++) {
+            if (leitura.getInt(posicao) != MAGIC) {
+                continue;
+            }
+
+            leitura.get(posicao, cabecalho);
+            int crcCabecalho = ByteBuffer.wrap(cabecalho, TAMANHO_CABECALHO - 4, 4).getInt();
+            if (crc(cabecalho, 0, TAMANHO_CABECALHO - 4) == crcCabecalho) {
+                return posicao;
+            }
+        }
+        return -1;
+    }
+
+    // Registros anexados depois do último mapeamento forçam um novo map do
+    // arquivo inteiro; leituras concorrentes usam acesso absoluto ao buffer.
+    private void lerMapeado(long offset, byte[] destino) throws IOException {
+        MappedByteBuffer atual = mapa;
+
+        if (atual == null || offset + destino.length > atual.capacity()) {
+            synchronized (this) {
+                atual = mapa;
+                if (atual == null || offset + destino.length > atual.capacity()) {
+                    atual = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanhoArquivo);
+                    mapa = atual;
+                }
+            }
+        }
+
+        atual.get((int) offset, destino);
+    }
+
+    private static void escreverCabecalho(ByteBuffer registro, byte[] hash, long expiraEm, int tamanho, int crcValor) {
+        registro.putInt(MAGIC);
+        registro.put(hash);
+        registro.putLong(expiraEm);
+        registro.putInt(tamanho);
+        registro.putInt(crcValor);
+        registro.putInt(crc(registro.array(), 0, TAMANHO_CABECALHO - 4));
+    }
+
+    private static int crc(byte[] dados, int inicio, int tamanho) {
+        CRC32 crc = new CRC32();
+        crc.update(dados, inicio, tamanho);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            canal.close();
+            mapa = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public int tamanho() { return indice.size(); }
+    public long getBytesArquivo() { return tamanhoArquivo; }
+    public long getBytesMortos() { return bytesMortos.get(); }
+    public long getAcertos() { return acertos.get(); }
+    public long getFaltas() { return faltas.get(); }
+    public long getCorrompidas() { return corrompidas.get(); }
+    public long getCompactacoes() { return compactacoes.get(); }
+
+    private static class Posicao {
+        final long offsetValor;
+        final int tamanho;
+        final int crc;
+        final long expiraEm;
+
+        Posicao(long offsetValor, int tamanho, int crc, long expiraEm) {
+            this.offsetValor = offsetValor;
+            this.tamanho = tamanho;
+            this.crc = crc;
+            this.expiraEm = expiraEm;
+        }
+
+        boolean expirada() {
+            return System.currentTimeMillis() > expiraEm;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tutoria.util;
+
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+// Registra via JFR os trechos em que uma thread virtual ficou presa à
+// thread portadora (chamadas nativas, monitores em código legado etc.).
+public class AuditoriaPinning {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+
+    private static RecordingStream stream;
+
+    public static synchronized void iniciar(long limiteMillis) {
+        if (stream != null) {
+            return;
+        }
+
+        stream = new RecordingStream();
+        stream.enable(EVENTO)
+                .withThreshold(Duration.ofMillis(limiteMillis))
+                .withStackTrace();
+        stream.onEvent(EVENTO, AuditoriaPinning::registrar);
+        stream.startAsync();
+
+        System.out.println("🔎 Auditoria de pinning de threads virtuais ativa (limite: " + limiteMillis + "ms)");
+    }
+
+    public static synchronized void parar() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private static void registrar(RecordedEvent evento) {
+        StringBuilder mensagem = new StringBuilder();
+        mensagem.append("⚠️ Thread virtual presa à portadora por ")
+                .append(evento.getDuration().toMillis())
+                .append("ms");
+
+        if (evento.getThread() != null) {
+            mensagem.append(" [").append(evento.getThread().getJavaName()).append("]");
+        }
+
+        if (evento.getStackTrace() != null) {
+            List<RecordedFrame> frames = evento.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(frames.size(), MAX_FRAMES); i++) {
+                RecordedFrame frame = frames.get(i);
+                mensagem.append("\n    at ")
+                        .append(frame.getMethod().getType().getName())
+                        .append('.')
+                        .append(frame.getMethod().getName())
+                        .append(':')
+                        .append(frame.getLineNumber());
+            }
+        }
+
+        System.err.println(mensagem);
+    }
+}
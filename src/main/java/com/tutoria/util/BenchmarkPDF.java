@@ -0,0 +1,175 @@
+package com.tutoria.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compara o pico de heap de extrações simultâneas de um PDF grande carregado
+// inteiro no heap (PDDocument.load padrão) e pelo PDFReader, com orçamento
+// por documento e global. Cada extração lê um InputStream novo, como um upload.
+// Uso: BenchmarkPDF [concorrencia] [tamanhoMb] [rodadas]
+public class BenchmarkPDF {
+
+    public static void main(String[] args) throws Exception {
+        int concorrencia = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int tamanhoMb = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int rodadas = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        System.out.println("=================================================");
+        System.out.println("    BENCHMARK - MEMÓRIA NA EXTRAÇÃO DE PDFs");
+        System.out.println("=================================================");
+
+        File pdf = gerarPDF(tamanhoMb);
+        try {
+            System.out.printf("PDF: %.1f MB | Concorrência: %d | Rodadas: %d | Heap máximo: %d MB%n%n",
+                    pdf.length() / (1024.0 * 1024), concorrencia, rodadas,
+                    Runtime.getRuntime().maxMemory() / (1024 * 1024));
+
+            PDFReader reader = new PDFReader();
+            executar("heap", concorrencia, rodadas, pdf, BenchmarkPDF::extrairNoHeap);
+            executar("orcamento", concorrencia, rodadas, pdf, reader::extrairTextoDePDF);
+            System.out.println();
+            System.out.println("PDFReader: " + reader.metricas());
+        } finally {
+            pdf.delete();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Extracao {
+        String extrair(InputStream entrada) throws IOException;
+    }
+
+    // O comportamento anterior do PDFReader
+    private static String extrairNoHeap(InputStream entrada) throws IOException {
+        try (PDDocument documento = PDDocument.load(entrada)) {
+            return new PDFTextStripper().getText(documento);
+        }
+    }
+
+    private static void executar(String modo, int concorrencia, int rodadas, File pdf, Extracao extracao) throws Exception {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long base = memoria.getHeapMemoryUsage().getUsed();
+        long gcAntes = totalGc();
+
+        AtomicLong pico = new AtomicLong(base);
+        AtomicBoolean medindo = new AtomicBoolean(true);
+        Thread amostrador = new Thread(() -> {
+            while (medindo.get()) {
+                pico.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        amostrador.setDaemon(true);
+        amostrador.start();
+
+        long inicio = System.nanoTime();
+        long caracteres = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(concorrencia)) {
+            for (int rodada = 0; rodada < rodadas; rodada++) {
+                List<Future<String>> tarefas = new ArrayList<>(concorrencia);
+                for (int i = 0; i < concorrencia; i++) {
+                    tarefas.add(executor.submit(() -> {
+                        try (InputStream entrada = new FileInputStream(pdf)) {
+                            return extracao.extrair(entrada);
+                        }
+                    }));
+                }
+                for (Future<String> tarefa : tarefas) {
+                    caracteres += tarefa.get().length();
+                }
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        medindo.set(false);
+        amostrador.join();
+
+        System.out.printf("%-10s pico de heap: %6d MB acima da base | GC: %5d ms | tempo: %5.1fs | %d caracteres/extração%n",
+                modo,
+                (pico.get() - base) / (1024 * 1024),
+                totalGc() - gcAntes,
+                segundos,
+                caracteres / ((long) concorrencia * rodadas));
+    }
+
+    private static long totalGc() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    // ========== PDF DE TESTE ==========
+
+    // Páginas de texto e imagens de ruído (que não comprimem) até o tamanho pedido
+    private static File gerarPDF(int tamanhoMb) throws IOException {
+        File arquivo = File.createTempFile("benchmark-pdf", ".pdf");
+        Random aleatorio = new Random(42);
+        long alvo = (long) tamanhoMb * 1024 * 1024;
+        long imagens = Math.max(1, alvo / (3L * 1024 * 1024));
+
+        try (PDDocument documento = new PDDocument()) {
+            for (int pagina = 0; pagina < 100; pagina++) {
+                PDPage page = new PDPage();
+                documento.addPage(page);
+
+                try (PDPageContentStream conteudo = new PDPageContentStream(documento, page)) {
+                    if (pagina < imagens) {
+                        PDImageXObject imagem = LosslessFactory.createFromImage(documento, ruido(aleatorio, 1024));
+                        conteudo.drawImage(imagem, 50, 400, 200, 200);
+                    }
+
+                    conteudo.beginText();
+                    conteudo.setFont(PDType1Font.HELVETICA, 10);
+                    conteudo.setLeading(12);
+                    conteudo.newLineAtOffset(50, 380);
+                    for (int linha = 0; linha < 25; linha++) {
+                        conteudo.showText("Pagina " + pagina + " linha " + linha + ": a celula realiza fotossintese, mitose e respiracao.");
+                        conteudo.newLine();
+                    }
+                    conteudo.endText();
+                }
+            }
+            documento.save(arquivo);
+        }
+        return arquivo;
+    }
+
+    private static BufferedImage ruido(Random aleatorio, int lado) {
+        BufferedImage imagem = new BufferedImage(lado, lado, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < lado; y++) {
+            for (int x = 0; x < lado; x++) {
+                imagem.setRGB(x, y, aleatorio.nextInt(0x1000000));
+            }
+        }
+        return imagem;
+    }
+}
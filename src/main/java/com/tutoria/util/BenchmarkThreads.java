@@ -0,0 +1,156 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+// Compara a vazão do Jetty com o pool de threads de plataforma e com threads
+// virtuais, usando um handler que bloqueia como uma chamada ao Gemini, ao banco
+// ou ao PDFBox. Uso: BenchmarkThreads [requisicoes] [concorrencia] [latenciaMs]
+public class BenchmarkThreads {
+
+    public static void main(String[] args) throws Exception {
+        int requisicoes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int concorrencia = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long latenciaMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+        System.out.println("=================================================");
+        System.out.println("    BENCHMARK - POOL DE THREADS DO SERVIDOR");
+        System.out.println("=================================================");
+        System.out.printf("Requisições: %d | Concorrência: %d | Latência simulada: %dms%n%n",
+                requisicoes, concorrencia, latenciaMs);
+
+        for (String modo : List.of(ServidorEmbutido.MODO_PLATAFORMA, ServidorEmbutido.MODO_VIRTUAL)) {
+            executar(modo, requisicoes, concorrencia, latenciaMs);
+        }
+    }
+
+    private static void executar(String modo, int requisicoes, int concorrencia, long latenciaMs) throws Exception {
+        Server server = new Server(ServidorEmbutido.criarThreadPool(modo));
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(0);
+        connector.setAcceptQueueSize(concorrencia);
+        server.addConnector(connector);
+        server.setHandler(new HandlerBloqueante(latenciaMs));
+        server.start();
+
+        URI uri = URI.create("http://localhost:" + connector.getLocalPort() + "/");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        // Aquecimento
+        disparar(client, uri, Math.min(requisicoes, concorrencia), concorrencia);
+
+        long inicio = System.nanoTime();
+        Resultado resultado = disparar(client, uri, requisicoes, concorrencia);
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        server.stop();
+
+        Collections.sort(resultado.latenciasMs);
+        System.out.printf("%-12s vazão: %8.1f req/s | p50: %6dms | p99: %6dms | falhas: %d%n",
+                modo,
+                resultado.sucesso.get() / segundos,
+                percentil(resultado.latenciasMs, 0.50),
+                percentil(resultado.latenciasMs, 0.99),
+                resultado.falhas.get());
+    }
+
+    private static Resultado disparar(HttpClient client, URI uri, int requisicoes, int concorrencia) throws Exception {
+        Resultado resultado = new Resultado();
+        Semaphore permissoes = new Semaphore(concorrencia);
+        List<Future<?>> tarefas = new ArrayList<>(requisicoes);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requisicoes; i++) {
+                permissoes.acquire();
+                tarefas.add(executor.submit(() -> {
+                    long inicio = System.nanoTime();
+                    try {
+                        HttpResponse<String> resposta = client.send(
+                                HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.ofString());
+
+                        if (resposta.statusCode() == 200) {
+                            resultado.sucesso.incrementAndGet();
+                            resultado.registrar((System.nanoTime() - inicio) / 1_000_000);
+                        } else {
+                            resultado.falhas.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        resultado.falhas.incrementAndGet();
+                    } finally {
+                        permissoes.release();
+                    }
+                }));
+            }
+        }
+
+        return resultado;
+    }
+
+    private static long percentil(List<Long> valoresOrdenados, double p) {
+        if (valoresOrdenados.isEmpty()) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p * valoresOrdenados.size()) - 1;
+        return valoresOrdenados.get(Math.max(0, indice));
+    }
+
+    private static class Resultado {
+        final AtomicInteger sucesso = new AtomicInteger();
+        final AtomicInteger falhas = new AtomicInteger();
+        final List<Long> latenciasMs = new ArrayList<>();
+
+        synchronized void registrar(long latenciaMs) {
+            latenciasMs.add(latenciaMs);
+        }
+    }
+
+    private static class HandlerBloqueante extends AbstractHandler {
+
+        private final long latenciaMs;
+
+        HandlerBloqueante(long latenciaMs) {
+            this.latenciaMs = latenciaMs;
+        }
+
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            response.setStatus(200);
+            response.setContentType("text/plain");
+            response.getOutputStream().write("ok".getBytes(StandardCharsets.UTF_8));
+            baseRequest.setHandled(true);
+        }
+    }
+}
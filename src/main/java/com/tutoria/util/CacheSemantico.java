@@ -0,0 +1,192 @@
+package com.tutoria.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Cache de respostas por significado da pergunta: a pergunta é normalizada
+// (minúsculas, sem acentos, pontuação e palavras vazias), vira um vetor pela
+// função de embedding e a resposta de uma pergunta guardada com cosseno acima
+// de similaridadeMinima é reaproveitada. Números, letras soltas e negações
+// quase não mexem no vetor, mas mudam a pergunta ("fase 1" e "fase 2"), então
+// também precisam ser os mesmos. Se a função principal falhar, a consulta usa
+// o EmbeddingLocal, com um índice próprio.
+public class CacheSemantico {
+
+    // Artigos, preposições e verbos de ligação. Interrogativos (como, qual,
+    // quando, por que) e negações ficam, porque mudam o sentido da pergunta.
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas",
+            "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos",
+            "ao", "aos", "por", "pelo", "pela", "pelos", "pelas", "para", "pra", "com",
+            "e", "que", "se", "sao", "ser", "seria", "sobre", "me", "voce", "explique", "explica");
+
+    private static final Set<String> NEGACOES = Set.of(
+            "nao", "nunca", "nem", "jamais", "nenhum", "nenhuma", "sem", "not", "never", "without");
+
+    private final FuncaoEmbedding principal;
+    private final EmbeddingLocal reserva;
+    private final double similaridadeMinima;
+    private final int maxEntradas;
+    private final long ttlMillis;
+    private final Map<String, IndiceLSH<Entrada>> indices = new ConcurrentHashMap<>();
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+    private final AtomicLong usosReserva = new AtomicLong();
+
+    public CacheSemantico(FuncaoEmbedding principal, double similaridadeMinima, int maxEntradas, long ttlMillis) {
+        this.principal = principal;
+        this.reserva = principal instanceof EmbeddingLocal local ? local : new EmbeddingLocal(256);
+        this.similaridadeMinima = similaridadeMinima;
+        this.maxEntradas = maxEntradas;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Completa sempre com uma Consulta; getResposta() é null numa falta e a
+    // mesma Consulta serve para guardar a resposta depois
+    public CompletableFuture<Consulta> buscarAsync(String pergunta) {
+        String texto = normalizar(pergunta);
+        String exatos = termosExatos(texto);
+
+        CompletableFuture<float[]> vetorPrincipal;
+        try {
+            vetorPrincipal = principal.embutirAsync(texto);
+        } catch (RuntimeException e) {
+            vetorPrincipal = CompletableFuture.failedFuture(e);
+        }
+
+        return vetorPrincipal.handle((vetor, erro) -> {
+            if (erro == null) {
+                return consultar(principal.nome(), vetor, exatos);
+            }
+
+            usosReserva.incrementAndGet();
+            return consultar(reserva.nome(), reserva.embutir(texto), exatos);
+        });
+    }
+
+    // Perguntas equivalentes respondidas ao mesmo tempo guardam só a primeira
+    public void guardar(Consulta consulta, String resposta) {
+        long agora = System.currentTimeMillis();
+        IndiceLSH<Entrada> indice = indice(consulta.espaco, consulta.vetor.length);
+        synchronized (indice) {
+            if (indice.maisProximo(consulta.vetor, similaridadeMinima, valida(consulta.exatos, agora)) == null) {
+                indice.adicionar(consulta.vetor, new Entrada(resposta, consulta.exatos, agora + ttlMillis));
+            }
+        }
+    }
+
+    private Consulta consultar(String espaco, float[] vetor, String exatos) {
+        long agora = System.currentTimeMillis();
+        IndiceLSH.Vizinho<Entrada> vizinho = indice(espaco, vetor.length)
+                .maisProximo(vetor, similaridadeMinima, valida(exatos, agora));
+
+        if (vizinho == null) {
+            faltas.incrementAndGet();
+            return new Consulta(espaco, vetor, exatos, null, 0);
+        }
+
+        acertos.incrementAndGet();
+        return new Consulta(espaco, vetor, exatos, vizinho.getValor().resposta, vizinho.getSimilaridade());
+    }
+
+    private static Predicate<Entrada> valida(String exatos, long agora) {
+        return entrada -> entrada.expiraEm >= agora && entrada.exatos.equals(exatos);
+    }
+
+    private IndiceLSH<Entrada> indice(String espaco, int dimensao) {
+        return indices.computeIfAbsent(espaco, e -> new IndiceLSH<>(dimensao, 10, 8, maxEntradas, 42));
+    }
+
+    // ========== NORMALIZAÇÃO ==========
+
+    public static String normalizar(String pergunta) {
+        String minusculas = pergunta.toLowerCase(Locale.ROOT);
+        String semAcentos = Normalizer.normalize(minusculas, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+
+        StringBuilder normalizada = new StringBuilder();
+        for (String palavra : semAcentos.split("[^\\p{L}\\p{N}]+")) {
+            if (palavra.isEmpty() || PALAVRAS_VAZIAS.contains(palavra)) {
+                continue;
+            }
+            if (normalizada.length() > 0) {
+                normalizada.append(' ');
+            }
+            normalizada.append(palavra);
+        }
+
+        // Uma pergunta só de palavras vazias ainda precisa de alguma chave
+        return normalizada.length() > 0 ? normalizada.toString() : semAcentos.trim();
+    }
+
+    // Termos da pergunta normalizada que precisam coincidir, em ordem alfabética
+    static String termosExatos(String normalizada) {
+        Set<String> exatos = new TreeSet<>();
+        for (String palavra : normalizada.split(" ")) {
+            if (palavra.length() == 1 || NEGACOES.contains(palavra) || palavra.chars().anyMatch(Character::isDigit)) {
+                exatos.add(palavra);
+            }
+        }
+        return String.join(" ", exatos);
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public int tamanho() {
+        int total = 0;
+        for (IndiceLSH<Entrada> indice : indices.values()) {
+            total += indice.tamanho();
+        }
+        return total;
+    }
+
+    public long getAcertos() { return acertos.get(); }
+    public long getFaltas() { return faltas.get(); }
+    public long getUsosReserva() { return usosReserva.get(); }
+    public String getEmbedding() { return principal.nome(); }
+
+    public double taxaDeAcerto() {
+        long total = acertos.get() + faltas.get();
+        return total == 0 ? 0.0 : (double) acertos.get() / total;
+    }
+
+    // ========== TIPOS ==========
+
+    private static final class Entrada {
+        private final String resposta;
+        private final String exatos;
+        private final long expiraEm;
+
+        private Entrada(String resposta, String exatos, long expiraEm) {
+            this.resposta = resposta;
+            this.exatos = exatos;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    public static final class Consulta {
+        private final String espaco;
+        private final float[] vetor;
+        private final String exatos;
+        private final String resposta;
+        private final double similaridade;
+
+        private Consulta(String espaco, float[] vetor, String exatos, String resposta, double similaridade) {
+            this.espaco = espaco;
+            this.vetor = vetor;
+            this.exatos = exatos;
+            this.resposta = resposta;
+            this.similaridade = similaridade;
+        }
+
+        public String getResposta() { return resposta; }
+        public double getSimilaridade() { return similaridade; }
+    }
+}
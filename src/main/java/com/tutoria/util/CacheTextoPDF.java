@@ -0,0 +1,135 @@
+package com.tutoria.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Texto já extraído de PDFs, indexado pelo SHA-256 dos bytes do arquivo. O
+// texto fica comprimido (Deflate) num CacheWTinyLFU limitado por bytes e,
+// opcionalmente, num ArmazemRespostas em disco, que sobrevive a reinícios.
+// O mesmo arquivo enviado de novo, por outro usuário ou para outra rota, não
+// passa pelo PDFBox.
+public class CacheTextoPDF {
+
+    private final CacheWTinyLFU<String, byte[]> memoria;
+    private final ArmazemRespostas disco;
+    private final long ttlDiscoMillis;
+
+    private final AtomicLong acertosMemoria = new AtomicLong();
+    private final AtomicLong acertosDisco = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+    private final AtomicLong bytesOriginais = new AtomicLong();
+    private final AtomicLong bytesComprimidos = new AtomicLong();
+
+    // disco pode ser null
+    public CacheTextoPDF(int maxEntradas, long maxBytes, long ttlMillis, ArmazemRespostas disco, long ttlDiscoMillis) {
+        this.memoria = new CacheWTinyLFU<>(maxEntradas, maxBytes, ttlMillis, valor -> valor.length);
+        this.disco = disco;
+        this.ttlDiscoMillis = ttlDiscoMillis;
+    }
+
+    public String buscar(String hashArquivo) {
+        byte[] comprimido = memoria.buscar(hashArquivo);
+        if (comprimido != null) {
+            acertosMemoria.incrementAndGet();
+            return descomprimir(comprimido);
+        }
+
+        if (disco != null) {
+            comprimido = disco.buscarBytes(hashArquivo);
+            if (comprimido != null) {
+                acertosDisco.incrementAndGet();
+                memoria.guardar(hashArquivo, comprimido);
+                return descomprimir(comprimido);
+            }
+        }
+
+        faltas.incrementAndGet();
+        return null;
+    }
+
+    public void guardar(String hashArquivo, String texto) {
+        byte[] original = texto.getBytes(StandardCharsets.UTF_8);
+        byte[] comprimido = comprimir(original);
+        bytesOriginais.addAndGet(original.length);
+        bytesComprimidos.addAndGet(comprimido.length);
+
+        memoria.guardar(hashArquivo, comprimido);
+
+        if (disco != null) {
+            try {
+                disco.guardarBytes(hashArquivo, comprimido, ttlDiscoMillis);
+            } catch (IOException e) {
+                System.err.println("⚠️ Erro ao gravar texto de PDF no disco: " + e.getMessage());
+            }
+        }
+    }
+
+    // ========== COMPRESSÃO ==========
+
+    private static byte[] comprimir(byte[] dados) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(dados);
+            deflater.finish();
+
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, dados.length / 3));
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                saida.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return saida.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String descomprimir(byte[] comprimido) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(comprimido.length * 3);
+            byte[] buffer = new byte[16 * 1024];
+            while (!inflater.finished()) {
+                int lidos = inflater.inflate(buffer);
+                if (lidos == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Texto de PDF comprimido incompleto");
+                }
+                saida.write(buffer, 0, lidos);
+            }
+            return saida.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Texto de PDF comprimido inválido", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public Map<String, Object> metricas() {
+        long acertos = acertosMemoria.get() + acertosDisco.get();
+        long total = acertos + faltas.get();
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("entradas", memoria.tamanho());
+        metricas.put("bytesMemoria", memoria.peso());
+        metricas.put("acertosMemoria", acertosMemoria.get());
+        metricas.put("acertosDisco", acertosDisco.get());
+        metricas.put("faltas", faltas.get());
+        metricas.put("taxaAcerto", total == 0 ? 0.0 : (double) acertos / total);
+        metricas.put("taxaCompressao", bytesOriginais.get() == 0 ? 0.0 : (double) bytesComprimidos.get() / bytesOriginais.get());
+        if (disco != null) {
+            metricas.put("entradasDisco", disco.tamanho());
+            metricas.put("bytesDisco", disco.getBytesArquivo());
+        }
+        return metricas;
+    }
+}
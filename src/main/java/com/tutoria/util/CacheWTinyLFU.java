@@ -0,0 +1,312 @@
+package com.tutoria.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+// Cache limitado por número de entradas e por peso total, com política
+// W-TinyLFU: uma janela LRU pequena recebe as entradas novas e, ao sair dela,
+// cada candidata só entra no segmento principal (SLRU) se for mais frequente
+// que a vítima, segundo um Count-Min Sketch com envelhecimento periódico.
+public class CacheWTinyLFU<K, V> {
+
+    private static final double PROPORCAO_JANELA = 0.01;
+    private static final double PROPORCAO_PROTEGIDO = 0.80;
+
+    private final int maxEntradas;
+    private final long maxPeso;
+    private final long ttlMillis;
+    private final ToLongFunction<V> pesador;
+
+    private final int maxJanela;
+    private final int maxProtegido;
+
+    private final LinkedHashMap<K, Entrada<V>> janela = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entrada<V>> probatorio = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entrada<V>> protegido = new LinkedHashMap<>(16, 0.75f, true);
+    private final SketchFrequencia sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long pesoTotal = 0;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong faltas = new AtomicLong();
+    private final AtomicLong expiradas = new AtomicLong();
+    private final AtomicLong despejadas = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+
+    public CacheWTinyLFU(int maxEntradas, long maxPeso, long ttlMillis, ToLongFunction<V> pesador) {
+        if (maxEntradas < 1) {
+            throw new IllegalArgumentException("maxEntradas deve ser positivo");
+        }
+
+        this.maxEntradas = maxEntradas;
+        this.maxPeso = maxPeso;
+        this.ttlMillis = ttlMillis;
+        this.pesador = pesador;
+        this.maxJanela = Math.max(1, (int) (maxEntradas * PROPORCAO_JANELA));
+        this.maxProtegido = (int) ((maxEntradas - maxJanela) * PROPORCAO_PROTEGIDO);
+        this.sketch = new SketchFrequencia(maxEntradas);
+    }
+
+    // ========== OPERAÇÕES ==========
+
+    public V buscar(K chave) {
+        lock.lock();
+        try {
+            sketch.incrementar(chave.hashCode());
+
+            Entrada<V> entrada = janela.get(chave);
+            if (entrada == null) {
+                entrada = probatorio.remove(chave);
+                if (entrada != null) {
+                    promover(chave, entrada);
+                } else {
+                    entrada = protegido.get(chave);
+                }
+            }
+
+            if (entrada == null) {
+                faltas.incrementAndGet();
+                return null;
+            }
+
+            if (entrada.expirada()) {
+                removerInterno(chave);
+                expiradas.incrementAndGet();
+                faltas.incrementAndGet();
+                return null;
+            }
+
+            acertos.incrementAndGet();
+            return entrada.valor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void guardar(K chave, V valor) {
+        long peso = pesador.applyAsLong(valor);
+        if (peso > maxPeso) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            sketch.incrementar(chave.hashCode());
+            removerInterno(chave);
+
+            janela.put(chave, new Entrada<>(valor, peso, System.currentTimeMillis() + ttlMillis));
+            pesoTotal += peso;
+
+            if (janela.size() > maxJanela) {
+                admitirDaJanela();
+            }
+
+            while (pesoTotal > maxPeso) {
+                if (!despejarMaisAntigo(probatorio) && !despejarMaisAntigo(janela) && !despejarMaisAntigo(protegido)) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidar(K chave) {
+        lock.lock();
+        try {
+            removerInterno(chave);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void limpar() {
+        lock.lock();
+        try {
+            janela.clear();
+            probatorio.clear();
+            protegido.clear();
+            pesoTotal = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== POLÍTICA ==========
+
+    private void promover(K chave, Entrada<V> entrada) {
+        protegido.put(chave, entrada);
+
+        if (protegido.size() > maxProtegido) {
+            Iterator<Map.Entry<K, Entrada<V>>> it = protegido.entrySet().iterator();
+            Map.Entry<K, Entrada<V>> rebaixada = it.next();
+            it.remove();
+            probatorio.put(rebaixada.getKey(), rebaixada.getValue());
+        }
+    }
+
+    private void admitirDaJanela() {
+        Iterator<Map.Entry<K, Entrada<V>>> it = janela.entrySet().iterator();
+        Map.Entry<K, Entrada<V>> candidata = it.next();
+        it.remove();
+
+        if (probatorio.size() + protegido.size() < maxEntradas - maxJanela) {
+            probatorio.put(candidata.getKey(), candidata.getValue());
+            return;
+        }
+
+        LinkedHashMap<K, Entrada<V>> segmentoVitima = probatorio.isEmpty() ? protegido : probatorio;
+        Map.Entry<K, Entrada<V>> vitima = segmentoVitima.entrySet().iterator().next();
+
+        if (sketch.frequencia(candidata.getKey().hashCode()) > sketch.frequencia(vitima.getKey().hashCode())) {
+            segmentoVitima.remove(vitima.getKey());
+            pesoTotal -= vitima.getValue().peso;
+            despejadas.incrementAndGet();
+            probatorio.put(candidata.getKey(), candidata.getValue());
+        } else {
+            pesoTotal -= candidata.getValue().peso;
+            rejeitadas.incrementAndGet();
+        }
+    }
+
+    private boolean despejarMaisAntigo(LinkedHashMap<K, Entrada<V>> segmento) {
+        if (segmento.isEmpty()) {
+            return false;
+        }
+
+        Iterator<Map.Entry<K, Entrada<V>>> it = segmento.entrySet().iterator();
+        pesoTotal -= it.next().getValue().peso;
+        it.remove();
+        despejadas.incrementAndGet();
+        return true;
+    }
+
+    private void removerInterno(K chave) {
+        Entrada<V> removida = janela.remove(chave);
+        if (removida == null) {
+            removida = probatorio.remove(chave);
+        }
+        if (removida == null) {
+            removida = protegido.remove(chave);
+        }
+        if (removida != null) {
+            pesoTotal -= removida.peso;
+        }
+    }
+
+    // ========== MÉTRICAS ==========
+
+    public int tamanho() {
+        lock.lock();
+        try {
+            return janela.size() + probatorio.size() + protegido.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long peso() {
+        lock.lock();
+        try {
+            return pesoTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAcertos() { return acertos.get(); }
+    public long getFaltas() { return faltas.get(); }
+    public long getExpiradas() { return expiradas.get(); }
+    public long getDespejadas() { return despejadas.get(); }
+    public long getRejeitadas() { return rejeitadas.get(); }
+
+    public double taxaDeAcerto() {
+        long total = acertos.get() + faltas.get();
+        return total == 0 ? 0.0 : (double) acertos.get() / total;
+    }
+
+    // ========== ESTRUTURAS INTERNAS ==========
+
+    private static class Entrada<V> {
+        final V valor;
+        final long peso;
+        final long expiraEm;
+
+        Entrada(V valor, long peso, long expiraEm) {
+            this.valor = valor;
+            this.peso = peso;
+            this.expiraEm = expiraEm;
+        }
+
+        boolean expirada() {
+            return System.currentTimeMillis() > expiraEm;
+        }
+    }
+
+    // Count-Min Sketch de 4 linhas com contadores saturando em 15; ao atingir
+    // o tamanho da amostra todos os contadores são divididos por dois.
+    private static class SketchFrequencia {
+
+        private static final int LINHAS = 4;
+        private static final int MAX_CONTADOR = 15;
+        private static final int[] SEMENTES = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        private final byte[][] contadores;
+        private final int mascara;
+        private final int tamanhoAmostra;
+        private int incrementos = 0;
+
+        SketchFrequencia(int capacidade) {
+            int largura = Integer.highestOneBit(Math.max(16, capacidade - 1) << 1);
+            this.contadores = new byte[LINHAS][largura];
+            this.mascara = largura - 1;
+            this.tamanhoAmostra = 10 * Math.max(16, capacidade);
+        }
+
+        void incrementar(int hash) {
+            boolean incrementou = false;
+
+            for (int i = 0; i < LINHAS; i++) {
+                int indice = indice(hash, i);
+                if (contadores[i][indice] < MAX_CONTADOR) {
+                    contadores[i][indice]++;
+                    incrementou = true;
+                }
+            }
+
+            if (incrementou && ++incrementos >= tamanhoAmostra) {
+                envelhecer();
+            }
+        }
+
+        int frequencia(int hash) {
+            int minimo = MAX_CONTADOR;
+
+            for (int i = 0; i < LINHAS; i++) {
+                minimo = Math.min(minimo, contadores[i][indice(hash, i)]);
+            }
+
+            return minimo;
+        }
+
+        private int indice(int hash, int linha) {
+            int h = (hash ^ SEMENTES[linha]) * 0x9E3779B9;
+            h ^= h >>> 16;
+            return h & mascara;
+        }
+
+        private void envelhecer() {
+            for (byte[] linha : contadores) {
+                for (int j = 0; j < linha.length; j++) {
+                    linha[j] = (byte) (linha[j] >> 1);
+                }
+            }
+            incrementos /= 2;
+        }
+    }
+}
@@ -6,16 +6,24 @@ import java.util.Properties;
 
 public class ConfigLoader {
 
-    private static Properties properties = null;
+    private static volatile Properties properties = null;
 
     private static void carregarProperties() {
-        if (properties == null) {
-            properties = new Properties();
+        if (properties != null) {
+            return;
+        }
+
+        synchronized (ConfigLoader.class) {
+            if (properties != null) {
+                return;
+            }
+
+            Properties carregadas = new Properties();
             try (InputStream input = ConfigLoader.class.getClassLoader()
                     .getResourceAsStream("application.properties")) {
 
                 if (input != null) {
-                    properties.load(input);
+                    carregadas.load(input);
                 } else {
                     System.out.println("⚠️ Arquivo application.properties não encontrado. Usando apenas variáveis de ambiente.");
                 }
@@ -23,10 +31,60 @@ public class ConfigLoader {
             } catch (IOException e) {
                 throw new RuntimeException("Erro ao carregar application.properties", e);
             }
+
+            properties = carregadas;
         }
     }
 
     public static String getProperty(String chave) {
+        String valor = buscarValor(chave);
+
+        if (valor == null || valor.isBlank()) {
+            throw new RuntimeException("⚠️ Valor não encontrado para a chave: " + chave);
+        }
+
+        return valor;
+    }
+
+    public static String getProperty(String chave, String padrao) {
+        String valor = buscarValor(chave);
+        return (valor == null || valor.isBlank()) ? padrao : valor.trim();
+    }
+
+    public static int getIntProperty(String chave, int padrao) {
+        String valor = getProperty(chave, null);
+
+        if (valor == null) {
+            return padrao;
+        }
+
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("⚠️ Valor inteiro inválido para a chave: " + chave, e);
+        }
+    }
+
+    public static long getLongProperty(String chave, long padrao) {
+        String valor = getProperty(chave, null);
+
+        if (valor == null) {
+            return padrao;
+        }
+
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("⚠️ Valor inteiro inválido para a chave: " + chave, e);
+        }
+    }
+
+    public static boolean getBooleanProperty(String chave, boolean padrao) {
+        String valor = getProperty(chave, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+
+    private static String buscarValor(String chave) {
         carregarProperties();
 
         String envKey = chave.toUpperCase().replace('.', '_');
@@ -40,10 +98,6 @@ public class ConfigLoader {
             }
         }
 
-        if (valor == null || valor.isBlank()) {
-            throw new RuntimeException("⚠️ Valor não encontrado para a chave: " + chave);
-        }
-
         return valor;
     }
 
@@ -0,0 +1,177 @@
+package com.tutoria.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Circuit breaker com janela deslizante das últimas N chamadas.
+// FECHADO: tudo passa; abre quando a taxa de falhas da janela passa do limite.
+// ABERTO: recusa na hora com CircuitoAbertoException até vencer o tempo aberto.
+// MEIO_ABERTO: deixa passar algumas sondas; se todas derem certo fecha, se
+// uma falhar abre de novo.
+public class DisjuntorCircuito {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final boolean[] janela;
+    private final int minChamadas;
+    private final double taxaFalhasMaxima;
+    private final long tempoAbertoNanos;
+    private final int sondas;
+
+    private Estado estado = Estado.FECHADO;
+    private int posicao;
+    private int registradas;
+    private int falhasNaJanela;
+    private long abertoAte;
+    private int sondasEmAndamento;
+    private int sondasComSucesso;
+
+    private long aberturas;
+    private long recusadas;
+
+    public DisjuntorCircuito(int tamanhoJanela, int minChamadas, double taxaFalhasMaxima,
+                             long tempoAbertoMillis, int sondas) {
+        this.janela = new boolean[Math.max(1, tamanhoJanela)];
+        this.minChamadas = Math.max(1, Math.min(minChamadas, janela.length));
+        this.taxaFalhasMaxima = taxaFalhasMaxima;
+        this.tempoAbertoNanos = TimeUnit.MILLISECONDS.toNanos(tempoAbertoMillis);
+        this.sondas = Math.max(1, sondas);
+    }
+
+    // ehFalha decide quais erros contam contra o serviço; cancelamentos nunca contam
+    public <T> CompletableFuture<T> executar(Supplier<CompletableFuture<T>> chamada, Predicate<Throwable> ehFalha) {
+        boolean sonda;
+        synchronized (this) {
+            sonda = permitir();
+            if (!sonda && estado != Estado.FECHADO) {
+                recusadas++;
+                long restante = Math.max(0, abertoAte - System.nanoTime());
+                return CompletableFuture.failedFuture(new CircuitoAbertoException(
+                        "Serviço de IA temporariamente indisponível", TimeUnit.NANOSECONDS.toSeconds(restante) + 1));
+            }
+        }
+
+        CompletableFuture<T> futuro;
+        try {
+            futuro = chamada.get();
+        } catch (RuntimeException e) {
+            liberarSonda(sonda);
+            throw e;
+        }
+
+        // O resultado só chega a quem chamou depois de registrado, para que a
+        // próxima chamada já veja o estado atualizado
+        CompletableFuture<T> registrado = futuro.whenComplete((valor, erro) -> {
+            if (erro == null) {
+                registrar(sonda, false);
+                return;
+            }
+
+            Throwable causa = Futuros.causaReal(erro);
+            if (futuro.isCancelled() || !ehFalha.test(causa)) {
+                liberarSonda(sonda);
+            } else {
+                registrar(sonda, true);
+            }
+        });
+
+        return Futuros.vincularCancelamento(registrado, futuro);
+    }
+
+    // Devolve true se a chamada é uma sonda do estado meio-aberto.
+    // Em FECHADO devolve false e a chamada segue normalmente.
+    private boolean permitir() {
+        if (estado == Estado.ABERTO && System.nanoTime() >= abertoAte) {
+            estado = Estado.MEIO_ABERTO;
+            sondasEmAndamento = 0;
+            sondasComSucesso = 0;
+        }
+
+        if (estado == Estado.MEIO_ABERTO && sondasEmAndamento + sondasComSucesso < sondas) {
+            sondasEmAndamento++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private synchronized void liberarSonda(boolean sonda) {
+        if (sonda && estado == Estado.MEIO_ABERTO) {
+            sondasEmAndamento--;
+        }
+    }
+
+    private synchronized void registrar(boolean sonda, boolean falhou) {
+        if (sonda) {
+            if (estado != Estado.MEIO_ABERTO) {
+                return;
+            }
+
+            sondasEmAndamento--;
+            if (falhou) {
+                abrir();
+            } else if (++sondasComSucesso >= sondas) {
+                fechar();
+            }
+            return;
+        }
+
+        if (estado != Estado.FECHADO) {
+            return;
+        }
+
+        if (registradas == janela.length && janela[posicao]) {
+            falhasNaJanela--;
+        }
+        janela[posicao] = falhou;
+        if (falhou) {
+            falhasNaJanela++;
+        }
+        posicao = (posicao + 1) % janela.length;
+        registradas = Math.min(janela.length, registradas + 1);
+
+        if (registradas >= minChamadas && falhasNaJanela * 100.0 / registradas >= taxaFalhasMaxima) {
+            abrir();
+        }
+    }
+
+    private void abrir() {
+        estado = Estado.ABERTO;
+        abertoAte = System.nanoTime() + tempoAbertoNanos;
+        aberturas++;
+        System.err.println("⚠️ Circuito da IA aberto por " + TimeUnit.NANOSECONDS.toSeconds(tempoAbertoNanos) + "s");
+    }
+
+    private void fechar() {
+        estado = Estado.FECHADO;
+        posicao = 0;
+        registradas = 0;
+        falhasNaJanela = 0;
+        System.out.println("✅ Circuito da IA fechado novamente");
+    }
+
+    public synchronized Estado getEstado() {
+        if (estado == Estado.ABERTO && System.nanoTime() >= abertoAte) {
+            return Estado.MEIO_ABERTO;
+        }
+        return estado;
+    }
+
+    public synchronized double getTaxaFalhas() {
+        return registradas == 0 ? 0 : falhasNaJanela * 100.0 / registradas;
+    }
+
+    public synchronized long getAberturas() { return aberturas; }
+    public synchronized long getRecusadas() { return recusadas; }
+
+    public static class CircuitoAbertoException extends SobrecargaException {
+
+        private static final long serialVersionUID = 1L;
+
+        public CircuitoAbertoException(String mensagem, long retryAfterSegundos) {
+            super(mensagem, retryAfterSegundos);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tutoria.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Quebra textos longos em blocos de até tamanhoMaximo caracteres, preferindo
+// cortar em fronteiras de seção, depois de parágrafo, de linha e de frase.
+// Só corta no meio de uma palavra se nenhuma fronteira couber no limite.
+public class DivisorTexto {
+
+    private static final Pattern[] FRONTEIRAS = {
+            // Início de seção: "Capítulo 3", "SEÇÃO 2", "Parte I", "2.1 Título", "1. Introdução"
+            Pattern.compile("(?m)(?=^[ \\t]*(?:(?i:cap[ií]tulo|se[cç][aã]o|parte|unidade|chapter|section)\\b|\\d+(?:\\.\\d+)*\\.?[ \\t]+\\p{Lu}))"),
+            // Parágrafo (linha em branco)
+            Pattern.compile("(?<=\\n)[ \\t]*\\n"),
+            // Quebra de linha
+            Pattern.compile("(?<=\\n)"),
+            // Fim de frase
+            Pattern.compile("(?<=[.!?])\\s+"),
+            // Espaço entre palavras
+            Pattern.compile("(?<=\\s)")
+    };
+
+    public static List<String> dividir(String texto, int tamanhoMaximo) {
+        if (tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("tamanhoMaximo deve ser positivo");
+        }
+
+        List<String> blocos = new ArrayList<>();
+        dividir(texto, tamanhoMaximo, 0, blocos);
+        blocos.removeIf(bloco -> bloco.isBlank());
+        return blocos;
+    }
+
+    private static void dividir(String texto, int tamanhoMaximo, int nivel, List<String> blocos) {
+        if (texto.length() <= tamanhoMaximo) {
+            blocos.add(texto.strip());
+            return;
+        }
+
+        if (nivel >= FRONTEIRAS.length) {
+            for (int inicio = 0; inicio < texto.length(); inicio += tamanhoMaximo) {
+                blocos.add(texto.substring(inicio, Math.min(texto.length(), inicio + tamanhoMaximo)).strip());
+            }
+            return;
+        }
+
+        String[] partes = FRONTEIRAS[nivel].split(texto);
+        if (partes.length <= 1) {
+            dividir(texto, tamanhoMaximo, nivel + 1, blocos);
+            return;
+        }
+
+        // Junta partes vizinhas enquanto couberem; uma parte grande demais
+        // sozinha desce para a próxima fronteira.
+        StringBuilder atual = new StringBuilder();
+        String separador = nivel <= 1 ? "\n\n" : nivel == 3 ? " " : "";
+
+        for (String parte : partes) {
+            if (parte.length() > tamanhoMaximo) {
+                if (atual.length() > 0) {
+                    blocos.add(atual.toString().strip());
+                    atual.setLength(0);
+                }
+                dividir(parte, tamanhoMaximo, nivel + 1, blocos);
+                continue;
+            }
+
+            if (atual.length() > 0 && atual.length() + separador.length() + parte.length() > tamanhoMaximo) {
+                blocos.add(atual.toString().strip());
+                atual.setLength(0);
+            }
+
+            if (atual.length() > 0) {
+                atual.append(separador);
+            }
+            atual.append(parte);
+        }
+
+        if (atual.length() > 0) {
+            blocos.add(atual.toString().strip());
+        }
+    }
+}
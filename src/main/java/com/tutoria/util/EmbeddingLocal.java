@@ -0,0 +1,70 @@
+package com.tutoria.util;
+
+import java.util.concurrent.CompletableFuture;
+
+// Embedding sem rede: as palavras e os trigramas de caracteres de cada
+// palavra são espalhados por hash num vetor de tamanho fixo (com sinal, para
+// as colisões se cancelarem em média) e o vetor é normalizado. Pega
+// variações de grafia e de ordem das palavras, não sinônimos.
+public class EmbeddingLocal implements FuncaoEmbedding {
+
+    private static final float PESO_PALAVRA = 1.0f;
+    private static final float PESO_TRIGRAMA = 0.5f;
+
+    private final int dimensao;
+
+    public EmbeddingLocal(int dimensao) {
+        this.dimensao = dimensao;
+    }
+
+    @Override
+    public String nome() {
+        return "local-" + dimensao;
+    }
+
+    @Override
+    public CompletableFuture<float[]> embutirAsync(String texto) {
+        return CompletableFuture.completedFuture(embutir(texto));
+    }
+
+    public float[] embutir(String texto) {
+        float[] vetor = new float[dimensao];
+
+        for (String palavra : texto.split("\\s+")) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+
+            somar(vetor, palavra.hashCode(), PESO_PALAVRA);
+
+            String comBordas = " " + palavra + " ";
+            for (int i = 0; i + 3 <= comBordas.length(); i++) {
+                somar(vetor, comBordas.substring(i, i + 3).hashCode() * 31 + 7, PESO_TRIGRAMA);
+            }
+        }
+
+        return normalizar(vetor);
+    }
+
+    private void somar(float[] vetor, int hash, float peso) {
+        int misturado = hash * 0x9E3779B9;
+        misturado ^= misturado >>> 16;
+        int indice = Math.floorMod(misturado, dimensao);
+        vetor[indice] += (misturado & 0x40000000) == 0 ? peso : -peso;
+    }
+
+    public static float[] normalizar(float[] vetor) {
+        double norma = 0;
+        for (float valor : vetor) {
+            norma += valor * valor;
+        }
+
+        if (norma > 0) {
+            float inverso = (float) (1.0 / Math.sqrt(norma));
+            for (int i = 0; i < vetor.length; i++) {
+                vetor[i] *= inverso;
+            }
+        }
+        return vetor;
+    }
+}
@@ -0,0 +1,69 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletResponse;
+
+// Escreve eventos Server-Sent Events num AsyncContext já iniciado.
+// Os métodos são sincronizados porque os trechos chegam pelas threads do OkHttp
+// enquanto o timeout é disparado pela thread do Jetty.
+public class EmissorSSE {
+
+    private final AsyncContext contexto;
+    private final OutputStream saida;
+    private boolean finalizado;
+
+    public EmissorSSE(AsyncContext contexto) throws IOException {
+        this.contexto = contexto;
+
+        HttpServletResponse resposta = (HttpServletResponse) contexto.getResponse();
+        resposta.setStatus(200);
+        resposta.setContentType("text/event-stream;charset=utf-8");
+        resposta.setHeader("Cache-Control", "no-cache");
+        resposta.setHeader("X-Accel-Buffering", "no");
+
+        this.saida = resposta.getOutputStream();
+        resposta.flushBuffer();
+    }
+
+    public synchronized boolean enviar(String evento, String dados) {
+        if (finalizado) {
+            return false;
+        }
+
+        StringBuilder mensagem = new StringBuilder();
+        mensagem.append("event: ").append(evento).append('\n');
+        for (String linha : dados.split("\n", -1)) {
+            mensagem.append("data: ").append(linha).append('\n');
+        }
+        mensagem.append('\n');
+
+        try {
+            saida.write(mensagem.toString().getBytes(StandardCharsets.UTF_8));
+            saida.flush();
+            return true;
+        } catch (IOException e) {
+            finalizado = true;
+            contexto.complete();
+            return false;
+        }
+    }
+
+    public synchronized void finalizar() {
+        if (finalizado) {
+            return;
+        }
+
+        finalizado = true;
+        contexto.complete();
+    }
+
+    public synchronized void finalizar(String evento, String dados) {
+        if (enviar(evento, dados)) {
+            finalizar();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.tutoria.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Subconjunto do esquema OpenAPI aceito como responseSchema pelo Gemini
+// (OBJECT, ARRAY, STRING, INTEGER, NUMBER, BOOLEAN). O mesmo esquema que vai
+// na requisição valida a resposta, já que o modelo pode ignorá-lo em parte.
+// Todas as propriedades de um objeto são obrigatórias.
+public class EsquemaJson {
+
+    public enum Tipo { OBJECT, ARRAY, STRING, INTEGER, NUMBER, BOOLEAN }
+
+    private final Tipo tipo;
+    private final Map<String, EsquemaJson> propriedades;
+    private final EsquemaJson itens;
+    private final int minItens;
+    private final int maxItens;
+
+    private EsquemaJson(Tipo tipo, Map<String, EsquemaJson> propriedades, EsquemaJson itens, int minItens, int maxItens) {
+        this.tipo = tipo;
+        this.propriedades = propriedades;
+        this.itens = itens;
+        this.minItens = minItens;
+        this.maxItens = maxItens;
+    }
+
+    public static EsquemaJson texto() {
+        return new EsquemaJson(Tipo.STRING, Map.of(), null, 0, Integer.MAX_VALUE);
+    }
+
+    public static EsquemaJson lista(EsquemaJson itens) {
+        return lista(itens, 0, Integer.MAX_VALUE);
+    }
+
+    public static EsquemaJson lista(EsquemaJson itens, int minItens, int maxItens) {
+        return new EsquemaJson(Tipo.ARRAY, Map.of(), itens, minItens, maxItens);
+    }
+
+    // Pares nome, esquema na ordem em que o modelo deve gerar as propriedades
+    public static EsquemaJson objeto(Object... nomesEEsquemas) {
+        Map<String, EsquemaJson> propriedades = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < nomesEEsquemas.length; i += 2) {
+            propriedades.put((String) nomesEEsquemas[i], (EsquemaJson) nomesEEsquemas[i + 1]);
+        }
+        return new EsquemaJson(Tipo.OBJECT, Collections.unmodifiableMap(propriedades), null, 0, Integer.MAX_VALUE);
+    }
+
+    public EsquemaJson propriedade(String nome) {
+        return propriedades.get(nome);
+    }
+
+    public EsquemaJson getItens() {
+        return itens;
+    }
+
+    // ========== SERIALIZAÇÃO ==========
+
+    public JsonObject paraJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("type", tipo.name());
+
+        if (tipo == Tipo.OBJECT) {
+            JsonObject props = new JsonObject();
+            JsonArray obrigatorias = new JsonArray();
+            JsonArray ordem = new JsonArray();
+            propriedades.forEach((nome, esquema) -> {
+                props.add(nome, esquema.paraJson());
+                obrigatorias.add(nome);
+                ordem.add(nome);
+            });
+            json.add("properties", props);
+            json.add("required", obrigatorias);
+            json.add("propertyOrdering", ordem);
+        } else if (tipo == Tipo.ARRAY) {
+            json.add("items", itens.paraJson());
+            if (minItens > 0) {
+                json.addProperty("minItems", minItens);
+            }
+            if (maxItens < Integer.MAX_VALUE) {
+                json.addProperty("maxItems", maxItens);
+            }
+        }
+
+        return json;
+    }
+
+    // ========== VALIDAÇÃO ==========
+
+    // Lança JsonParseException com o caminho do primeiro valor fora do esquema.
+    // Propriedades a mais são aceitas e ignoradas.
+    public void validar(JsonElement valor, String caminho) {
+        if (valor == null || valor.isJsonNull()) {
+            throw erro(caminho, "valor ausente");
+        }
+
+        switch (tipo) {
+            case OBJECT -> {
+                if (!valor.isJsonObject()) {
+                    throw erro(caminho, "esperado objeto");
+                }
+                JsonObject objeto = valor.getAsJsonObject();
+                propriedades.forEach((nome, esquema) -> esquema.validar(objeto.get(nome), caminho + "." + nome));
+            }
+            case ARRAY -> {
+                if (!valor.isJsonArray()) {
+                    throw erro(caminho, "esperada lista");
+                }
+                JsonArray lista = valor.getAsJsonArray();
+                if (lista.size() < minItens || lista.size() > maxItens) {
+                    throw erro(caminho, "lista com " + lista.size() + " itens fora do intervalo " + minItens + ".." + maxItens);
+                }
+                for (int i = 0; i < lista.size(); i++) {
+                    itens.validar(lista.get(i), caminho + "[" + i + "]");
+                }
+            }
+            case STRING -> {
+                if (!ehPrimitivo(valor, JsonPrimitive::isString) || valor.getAsString().isBlank()) {
+                    throw erro(caminho, "esperado texto não vazio");
+                }
+            }
+            case INTEGER, NUMBER -> {
+                if (!ehPrimitivo(valor, JsonPrimitive::isNumber)) {
+                    throw erro(caminho, "esperado número");
+                }
+            }
+            case BOOLEAN -> {
+                if (!ehPrimitivo(valor, JsonPrimitive::isBoolean)) {
+                    throw erro(caminho, "esperado booleano");
+                }
+            }
+        }
+    }
+
+    private static boolean ehPrimitivo(JsonElement valor, Predicate<JsonPrimitive> tipo) {
+        return valor.isJsonPrimitive() && tipo.test(valor.getAsJsonPrimitive());
+    }
+
+    private static JsonParseException erro(String caminho, String mensagem) {
+        return new JsonParseException(caminho + ": " + mensagem);
+    }
+}
@@ -0,0 +1,98 @@
+package com.tutoria.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+// Aceita itens até um máximo, recusando os que forem quase iguais a algum já
+// aceito. A comparação é local e barata: Jaccard entre os conjuntos de
+// palavras do texto de cada item (minúsculas, sem acentos, com 3+ letras).
+// Com poucas dezenas de itens, comparar com todos os aceitos custa microssegundos.
+public class FiltroQuaseDuplicatas<T> {
+
+    private final Function<T, String> texto;
+    private final double similaridadeMaxima;
+    private final int maximo;
+
+    private final List<T> aceitos = new ArrayList<>();
+    private final List<Set<String>> palavrasAceitos = new ArrayList<>();
+    private int duplicatas;
+    private int excedentes;
+
+    public FiltroQuaseDuplicatas(Function<T, String> texto, double similaridadeMaxima, int maximo) {
+        this.texto = texto;
+        this.similaridadeMaxima = similaridadeMaxima;
+        this.maximo = maximo;
+    }
+
+    public synchronized boolean aceitar(T item) {
+        if (aceitos.size() >= maximo) {
+            excedentes++;
+            return false;
+        }
+
+        Set<String> palavras = palavras(texto.apply(item));
+        for (Set<String> outras : palavrasAceitos) {
+            if (jaccard(palavras, outras) >= similaridadeMaxima) {
+                duplicatas++;
+                return false;
+            }
+        }
+
+        aceitos.add(item);
+        palavrasAceitos.add(palavras);
+        return true;
+    }
+
+    public synchronized List<T> getAceitos() {
+        return new ArrayList<>(aceitos);
+    }
+
+    public synchronized int getFaltam() {
+        return Math.max(0, maximo - aceitos.size());
+    }
+
+    public synchronized int getDuplicatas() {
+        return duplicatas;
+    }
+
+    public synchronized int getExcedentes() {
+        return excedentes;
+    }
+
+    // ========== SIMILARIDADE ==========
+
+    public static Set<String> palavras(String texto) {
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        Set<String> palavras = new HashSet<>();
+        for (String palavra : semAcentos.split("[^\\p{L}\\p{N}]+")) {
+            if (palavra.length() >= 3) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+
+    public static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+
+        Set<String> menor = a.size() <= b.size() ? a : b;
+        Set<String> maior = menor == a ? b : a;
+        int comuns = 0;
+        for (String palavra : menor) {
+            if (maior.contains(palavra)) {
+                comuns++;
+            }
+        }
+        return (double) comuns / (a.size() + b.size() - comuns);
+    }
+}
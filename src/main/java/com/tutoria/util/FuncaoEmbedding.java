@@ -0,0 +1,13 @@
+package com.tutoria.util;
+
+import java.util.concurrent.CompletableFuture;
+
+// Transforma um texto (já normalizado) num vetor para comparação por
+// cosseno. Vetores de funções diferentes não são comparáveis entre si, por
+// isso cada função tem seu próprio índice no CacheSemantico, separado pelo nome.
+public interface FuncaoEmbedding {
+
+    String nome();
+
+    CompletableFuture<float[]> embutirAsync(String texto);
+}
@@ -0,0 +1,147 @@
+package com.tutoria.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class Futuros {
+
+    // CompletableFuture não propaga cancelamento para trás em thenApply/thenCompose;
+    // isto liga o futuro derivado à origem para que cancelar um cancele o outro.
+    public static <T> CompletableFuture<T> vincularCancelamento(CompletableFuture<T> derivado, CompletableFuture<?> origem) {
+        derivado.whenComplete((resultado, erro) -> {
+            if (derivado.isCancelled()) {
+                origem.cancel(true);
+            }
+        });
+        return derivado;
+    }
+
+    // Como thenCompose, mas cancelar o resultado cancela a etapa que estiver
+    // rodando no momento, seja a origem ou o futuro devolvido por proximo.
+    public static <A, B> CompletableFuture<B> encadear(CompletableFuture<A> origem,
+                                                       Function<A, CompletableFuture<B>> proximo) {
+        CompletableFuture<B> resultado = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<?>> etapaAtual = new AtomicReference<>(origem);
+
+        origem.whenComplete((valor, erro) -> {
+            if (erro != null) {
+                resultado.completeExceptionally(causaReal(erro));
+                return;
+            }
+
+            CompletableFuture<B> seguinte;
+            try {
+                seguinte = proximo.apply(valor);
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+                return;
+            }
+
+            etapaAtual.set(seguinte);
+            if (resultado.isCancelled()) {
+                seguinte.cancel(true);
+                return;
+            }
+
+            seguinte.whenComplete((valorFinal, erroFinal) -> {
+                if (erroFinal != null) {
+                    resultado.completeExceptionally(causaReal(erroFinal));
+                } else {
+                    resultado.complete(valorFinal);
+                }
+            });
+        });
+
+        resultado.whenComplete((valor, erro) -> {
+            if (resultado.isCancelled()) {
+                etapaAtual.get().cancel(true);
+            }
+        });
+
+        return resultado;
+    }
+
+    // Executa as tarefas com no máximo 'paralelismo' futuros em andamento,
+    // preservando a ordem dos resultados. A primeira falha cancela as demais.
+    public static <T> CompletableFuture<List<T>> executarComLimite(List<Supplier<CompletableFuture<T>>> tarefas,
+                                                                   int paralelismo) {
+        CompletableFuture<List<T>> resultado = new CompletableFuture<>();
+        if (tarefas.isEmpty()) {
+            resultado.complete(List.of());
+            return resultado;
+        }
+
+        @SuppressWarnings("unchecked")
+        T[] valores = (T[]) new Object[tarefas.size()];
+        List<CompletableFuture<T>> emAndamento = new ArrayList<>();
+        AtomicInteger proxima = new AtomicInteger();
+        AtomicInteger restantes = new AtomicInteger(tarefas.size());
+
+        Runnable[] iniciarProxima = new Runnable[1];
+        iniciarProxima[0] = () -> {
+            int indice = proxima.getAndIncrement();
+            if (indice >= tarefas.size() || resultado.isDone()) {
+                return;
+            }
+
+            CompletableFuture<T> futuro;
+            try {
+                futuro = tarefas.get(indice).get();
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+                return;
+            }
+
+            synchronized (emAndamento) {
+                emAndamento.add(futuro);
+            }
+
+            futuro.whenComplete((valor, erro) -> {
+                if (erro != null) {
+                    resultado.completeExceptionally(causaReal(erro));
+                    return;
+                }
+
+                valores[indice] = valor;
+                if (restantes.decrementAndGet() == 0) {
+                    resultado.complete(Arrays.asList(valores));
+                } else {
+                    iniciarProxima[0].run();
+                }
+            });
+        };
+
+        for (int i = 0; i < Math.min(Math.max(1, paralelismo), tarefas.size()); i++) {
+            iniciarProxima[0].run();
+        }
+
+        resultado.whenComplete((lista, erro) -> {
+            if (erro != null) {
+                synchronized (emAndamento) {
+                    emAndamento.forEach(futuro -> futuro.cancel(true));
+                }
+            }
+        });
+
+        return resultado;
+    }
+
+    public static Throwable causaReal(Throwable erro) {
+        Throwable atual = erro;
+
+        while ((atual instanceof CompletionException || atual instanceof ExecutionException)
+                && atual.getCause() != null) {
+            atual = atual.getCause();
+        }
+
+        return atual;
+    }
+}
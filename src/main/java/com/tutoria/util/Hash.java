@@ -0,0 +1,35 @@
+package com.tutoria.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class Hash {
+
+    public static String sha256(String... partes) {
+        MessageDigest digest = novoDigest();
+
+        for (String parte : partes) {
+            byte[] bytes = (parte != null ? parte : "").getBytes(StandardCharsets.UTF_8);
+            digest.update(intParaBytes(bytes.length));
+            digest.update(bytes);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponível", e);
+        }
+    }
+
+    private static byte[] intParaBytes(int valor) {
+        return new byte[] {
+                (byte) (valor >>> 24), (byte) (valor >>> 16), (byte) (valor >>> 8), (byte) valor
+        };
+    }
+}
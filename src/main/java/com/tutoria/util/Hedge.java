@@ -0,0 +1,94 @@
+package com.tutoria.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Requisições "hedged": se a primeira tentativa passar do percentil de latência
+// observado, dispara uma segunda igual; a que terminar primeiro vence e a outra
+// é cancelada. Só dispara depois de minAmostras para o percentil fazer sentido.
+public class Hedge {
+
+    private final JanelaLatencias latencias;
+    private final double percentil;
+    private final int minAmostras;
+
+    private final AtomicLong disparados = new AtomicLong();
+    private final AtomicLong vitorias = new AtomicLong();
+
+    public Hedge(int janela, double percentil, int minAmostras) {
+        this.latencias = new JanelaLatencias(janela);
+        this.percentil = percentil;
+        this.minAmostras = minAmostras;
+    }
+
+    // podeDisparar é consultado no momento do hedge (ex.: orçamento de repetições)
+    public <T> CompletableFuture<T> executar(Supplier<CompletableFuture<T>> chamada, BooleanSupplier podeDisparar) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        List<CompletableFuture<T>> tentativas = new CopyOnWriteArrayList<>();
+        AtomicInteger pendentes = new AtomicInteger(1);
+
+        resultado.whenComplete((valor, erro) -> tentativas.forEach(tentativa -> tentativa.cancel(true)));
+
+        iniciar(chamada, false, resultado, tentativas, pendentes);
+
+        if (latencias.tamanho() >= minAmostras && !resultado.isDone()) {
+            long atraso = Math.max(1, TimeUnit.NANOSECONDS.toMillis(latencias.percentilNanos(percentil)));
+
+            CompletableFuture.delayedExecutor(atraso, TimeUnit.MILLISECONDS).execute(() -> {
+                if (resultado.isDone() || !podeDisparar.getAsBoolean()) {
+                    return;
+                }
+
+                // Não reabre uma operação que já falhou por completo
+                if (pendentes.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                    return;
+                }
+
+                disparados.incrementAndGet();
+                iniciar(chamada, true, resultado, tentativas, pendentes);
+            });
+        }
+
+        return resultado;
+    }
+
+    private <T> void iniciar(Supplier<CompletableFuture<T>> chamada, boolean ehHedge, CompletableFuture<T> resultado,
+                             List<CompletableFuture<T>> tentativas, AtomicInteger pendentes) {
+        long inicio = System.nanoTime();
+        CompletableFuture<T> futuro;
+        try {
+            futuro = chamada.get();
+        } catch (RuntimeException e) {
+            futuro = CompletableFuture.failedFuture(e);
+        }
+
+        tentativas.add(futuro);
+        if (resultado.isDone()) {
+            futuro.cancel(true);
+        }
+
+        futuro.whenComplete((valor, erro) -> {
+            if (erro == null) {
+                latencias.registrar(System.nanoTime() - inicio);
+                if (resultado.complete(valor) && ehHedge) {
+                    vitorias.incrementAndGet();
+                }
+                return;
+            }
+
+            if (pendentes.decrementAndGet() == 0) {
+                resultado.completeExceptionally(Futuros.causaReal(erro));
+            }
+        });
+    }
+
+    public long getDisparados() { return disparados.get(); }
+    public long getVitorias() { return vitorias.get(); }
+    public long getAtrasoMillis() { return latencias.tamanho() >= minAmostras ? latencias.percentilMillis(percentil) : 0; }
+}
@@ -0,0 +1,214 @@
+package com.tutoria.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Índice invertido em memória sobre os trechos de um documento, com
+// pontuação BM25. Cada termo aponta para duas listas de int (trechos em
+// ordem crescente e frequência do termo em cada um), sem objetos por
+// ocorrência. Os termos são normalizados (minúsculas, sem acentos) e as
+// palavras vazias mais comuns em português e inglês são ignoradas.
+public class IndiceBM25 {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TAMANHO_MINIMO_TERMO = 2;
+
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos",
+            "em", "na", "no", "nas", "nos", "por", "para", "pra", "com", "sem", "sob", "e", "ou",
+            "que", "se", "ao", "aos", "como", "mais", "mas", "seu", "sua", "seus", "suas", "ele",
+            "ela", "eles", "elas", "isso", "isto", "esse", "essa", "este", "esta", "entre", "sao",
+            "ser", "foi", "ha", "qual", "quais", "quando", "onde", "porque", "pelo", "pela",
+            "the", "of", "and", "to", "in", "is", "are", "for", "on", "with", "what", "how", "why");
+
+    private final String[] trechos;
+    private final Map<String, Integer> termos = new HashMap<>();
+    private final int[][] trechosPorTermo;
+    private final int[][] frequenciasPorTermo;
+    // k1 * (1 - b + b * comprimento / comprimentoMedio), por trecho
+    private final float[] normalizacao;
+    private final long ocorrencias;
+
+    public IndiceBM25(List<String> trechos) {
+        this.trechos = trechos.toArray(new String[0]);
+
+        int[][] listasTrechos = new int[64][];
+        int[][] listasFrequencias = new int[64][];
+        int[] tamanhos = new int[64];
+        int[] comprimentos = new int[this.trechos.length];
+        long totalTermos = 0;
+        long totalOcorrencias = 0;
+
+        int[] termosDoTrecho = new int[256];
+        for (int trecho = 0; trecho < this.trechos.length; trecho++) {
+            int quantidade = 0;
+            for (String termo : tokenizar(this.trechos[trecho])) {
+                Integer id = termos.get(termo);
+                if (id == null) {
+                    id = termos.size();
+                    termos.put(termo, id);
+                    if (id == listasTrechos.length) {
+                        listasTrechos = Arrays.copyOf(listasTrechos, id * 2);
+                        listasFrequencias = Arrays.copyOf(listasFrequencias, id * 2);
+                        tamanhos = Arrays.copyOf(tamanhos, id * 2);
+                    }
+                    listasTrechos[id] = new int[4];
+                    listasFrequencias[id] = new int[4];
+                }
+                if (quantidade == termosDoTrecho.length) {
+                    termosDoTrecho = Arrays.copyOf(termosDoTrecho, quantidade * 2);
+                }
+                termosDoTrecho[quantidade++] = id;
+            }
+
+            comprimentos[trecho] = quantidade;
+            totalTermos += quantidade;
+
+            // Ordenados, termos iguais ficam juntos e viram um par (trecho, frequência)
+            Arrays.sort(termosDoTrecho, 0, quantidade);
+            for (int i = 0; i < quantidade; ) {
+                int id = termosDoTrecho[i];
+                int fim = i;
+                while (fim < quantidade && termosDoTrecho[fim] == id) {
+                    fim++;
+                }
+
+                int posicao = tamanhos[id];
+                if (posicao == listasTrechos[id].length) {
+                    listasTrechos[id] = Arrays.copyOf(listasTrechos[id], posicao * 2);
+                    listasFrequencias[id] = Arrays.copyOf(listasFrequencias[id], posicao * 2);
+                }
+                listasTrechos[id][posicao] = trecho;
+                listasFrequencias[id][posicao] = fim - i;
+                tamanhos[id] = posicao + 1;
+                totalOcorrencias++;
+                i = fim;
+            }
+        }
+
+        this.trechosPorTermo = new int[termos.size()][];
+        this.frequenciasPorTermo = new int[termos.size()][];
+        for (int id = 0; id < termos.size(); id++) {
+            trechosPorTermo[id] = Arrays.copyOf(listasTrechos[id], tamanhos[id]);
+            frequenciasPorTermo[id] = Arrays.copyOf(listasFrequencias[id], tamanhos[id]);
+        }
+        this.ocorrencias = totalOcorrencias;
+
+        double comprimentoMedio = this.trechos.length == 0 ? 1 : Math.max(1.0, (double) totalTermos / this.trechos.length);
+        this.normalizacao = new float[this.trechos.length];
+        for (int trecho = 0; trecho < this.trechos.length; trecho++) {
+            normalizacao[trecho] = (float) (K1 * (1 - B + B * comprimentos[trecho] / comprimentoMedio));
+        }
+    }
+
+    // ========== CONSULTA ==========
+
+    // Índices dos até k trechos de maior pontuação, do mais relevante para o
+    // menos; trechos sem nenhum termo da consulta não entram
+    public int[] buscar(String consulta, int k) {
+        float[] pontuacoes = new float[trechos.length];
+        int total = trechos.length;
+        boolean algumTermo = false;
+
+        for (String termo : new LinkedHashSet<>(tokenizar(consulta))) {
+            Integer id = termos.get(termo);
+            if (id == null) {
+                continue;
+            }
+
+            int[] lista = trechosPorTermo[id];
+            int[] frequencias = frequenciasPorTermo[id];
+            double idf = Math.log(1 + (total - lista.length + 0.5) / (lista.length + 0.5));
+
+            for (int i = 0; i < lista.length; i++) {
+                int trecho = lista[i];
+                int frequencia = frequencias[i];
+                pontuacoes[trecho] += (float) (idf * frequencia * (K1 + 1) / (frequencia + normalizacao[trecho]));
+            }
+            algumTermo = true;
+        }
+
+        if (!algumTermo || k <= 0) {
+            return new int[0];
+        }
+
+        // Os k melhores por inserção: k é pequeno perto do número de trechos
+        int[] melhores = new int[Math.min(k, trechos.length)];
+        int quantidade = 0;
+        for (int trecho = 0; trecho < pontuacoes.length; trecho++) {
+            float pontuacao = pontuacoes[trecho];
+            if (pontuacao <= 0 || (quantidade == melhores.length && pontuacao <= pontuacoes[melhores[quantidade - 1]])) {
+                continue;
+            }
+
+            int posicao = quantidade < melhores.length ? quantidade++ : quantidade - 1;
+            while (posicao > 0 && pontuacoes[melhores[posicao - 1]] < pontuacao) {
+                melhores[posicao] = melhores[posicao - 1];
+                posicao--;
+            }
+            melhores[posicao] = trecho;
+        }
+
+        return Arrays.copyOf(melhores, quantidade);
+    }
+
+    public String trecho(int indice) {
+        return trechos[indice];
+    }
+
+    public int getTrechos() {
+        return trechos.length;
+    }
+
+    public int getTermos() {
+        return termos.size();
+    }
+
+    // Aproximado: texto dos trechos (UTF-16), listas de int e dicionário
+    public long bytesEstimados() {
+        long bytes = ocorrencias * 8 + (long) normalizacao.length * 4;
+        for (String trecho : trechos) {
+            bytes += 40 + 2L * trecho.length();
+        }
+        for (String termo : termos.keySet()) {
+            bytes += 96 + 2L * termo.length();
+        }
+        return bytes;
+    }
+
+    // ========== TERMOS ==========
+
+    private static List<String> tokenizar(String texto) {
+        String semAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        List<String> tokens = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+
+        for (int i = 0; i <= semAcentos.length(); i++) {
+            char c = i < semAcentos.length() ? semAcentos.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                atual.append(Character.toLowerCase(c));
+                continue;
+            }
+
+            if (atual.length() >= TAMANHO_MINIMO_TERMO) {
+                String termo = atual.toString();
+                if (!PALAVRAS_VAZIAS.contains(termo)) {
+                    tokens.add(termo);
+                }
+            }
+            atual.setLength(0);
+        }
+        return tokens;
+    }
+}
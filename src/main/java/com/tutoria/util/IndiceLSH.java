@@ -0,0 +1,162 @@
+package com.tutoria.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+// Índice de vizinho mais próximo aproximado por cosseno, com LSH de
+// hiperplanos aleatórios: cada tabela resume o vetor em 'bits' sinais de
+// produto escalar e vetores parecidos tendem a cair no mesmo balde em ao
+// menos uma das tabelas. Só os candidatos desses baldes são comparados de
+// fato. Guarda até maxEntradas; ao passar disso sai a entrada mais antiga.
+public class IndiceLSH<V> {
+
+    private final int dimensao;
+    private final int bits;
+    private final float[][][] hiperplanos;
+    private final List<Map<Integer, List<Entrada<V>>>> tabelas;
+    private final LinkedHashMap<Long, Entrada<V>> entradas = new LinkedHashMap<>();
+    private final int maxEntradas;
+    private long proximoId;
+
+    public IndiceLSH(int dimensao, int numeroTabelas, int bits, int maxEntradas, long semente) {
+        if (bits < 1 || bits > 31) {
+            throw new IllegalArgumentException("bits deve estar entre 1 e 31");
+        }
+
+        this.dimensao = dimensao;
+        this.bits = bits;
+        this.maxEntradas = maxEntradas;
+
+        Random aleatorio = new Random(semente);
+        this.hiperplanos = new float[numeroTabelas][bits][dimensao];
+        for (float[][] tabela : hiperplanos) {
+            for (float[] plano : tabela) {
+                for (int i = 0; i < dimensao; i++) {
+                    plano[i] = (float) aleatorio.nextGaussian();
+                }
+            }
+        }
+
+        this.tabelas = new ArrayList<>(numeroTabelas);
+        for (int t = 0; t < numeroTabelas; t++) {
+            tabelas.add(new HashMap<>());
+        }
+    }
+
+    // vetor deve estar normalizado (norma 1)
+    public synchronized void adicionar(float[] vetor, V valor) {
+        verificarDimensao(vetor);
+
+        Entrada<V> entrada = new Entrada<>(proximoId++, vetor, valor);
+        entradas.put(entrada.id, entrada);
+        for (int t = 0; t < tabelas.size(); t++) {
+            tabelas.get(t).computeIfAbsent(assinatura(t, vetor), b -> new ArrayList<>()).add(entrada);
+        }
+
+        Iterator<Entrada<V>> maisAntigas = entradas.values().iterator();
+        while (entradas.size() > maxEntradas) {
+            remover(maisAntigas.next());
+            maisAntigas.remove();
+        }
+    }
+
+    // O candidato válido de maior cosseno, se chegar a similaridadeMinima
+    public synchronized Vizinho<V> maisProximo(float[] vetor, double similaridadeMinima, Predicate<V> valido) {
+        verificarDimensao(vetor);
+
+        Entrada<V> melhor = null;
+        double melhorSimilaridade = similaridadeMinima;
+        for (int t = 0; t < tabelas.size(); t++) {
+            List<Entrada<V>> balde = tabelas.get(t).get(assinatura(t, vetor));
+            if (balde == null) {
+                continue;
+            }
+
+            for (Entrada<V> candidata : balde) {
+                double similaridade = produtoEscalar(vetor, candidata.vetor);
+                if (similaridade >= melhorSimilaridade && valido.test(candidata.valor)) {
+                    melhor = candidata;
+                    melhorSimilaridade = similaridade;
+                }
+            }
+        }
+
+        return melhor == null ? null : new Vizinho<>(melhor.valor, melhorSimilaridade);
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    public int getDimensao() {
+        return dimensao;
+    }
+
+    private void remover(Entrada<V> entrada) {
+        for (int t = 0; t < tabelas.size(); t++) {
+            int chave = assinatura(t, entrada.vetor);
+            List<Entrada<V>> balde = tabelas.get(t).get(chave);
+            if (balde != null) {
+                balde.remove(entrada);
+                if (balde.isEmpty()) {
+                    tabelas.get(t).remove(chave);
+                }
+            }
+        }
+    }
+
+    private int assinatura(int tabela, float[] vetor) {
+        int assinatura = 0;
+        for (int b = 0; b < bits; b++) {
+            if (produtoEscalar(hiperplanos[tabela][b], vetor) >= 0) {
+                assinatura |= 1 << b;
+            }
+        }
+        return assinatura;
+    }
+
+    private static double produtoEscalar(float[] a, float[] b) {
+        double soma = 0;
+        for (int i = 0; i < a.length; i++) {
+            soma += a[i] * b[i];
+        }
+        return soma;
+    }
+
+    private void verificarDimensao(float[] vetor) {
+        if (vetor.length != dimensao) {
+            throw new IllegalArgumentException("Vetor com dimensão " + vetor.length + ", esperada " + dimensao);
+        }
+    }
+
+    private static final class Entrada<V> {
+        private final long id;
+        private final float[] vetor;
+        private final V valor;
+
+        private Entrada(long id, float[] vetor, V valor) {
+            this.id = id;
+            this.vetor = vetor;
+            this.valor = valor;
+        }
+    }
+
+    public static final class Vizinho<V> {
+        private final V valor;
+        private final double similaridade;
+
+        private Vizinho(V valor, double similaridade) {
+            this.valor = valor;
+            this.similaridade = similaridade;
+        }
+
+        public V getValor() { return valor; }
+        public double getSimilaridade() { return similaridade; }
+    }
+}
@@ -0,0 +1,47 @@
+package com.tutoria.util;
+
+import java.util.Arrays;
+
+// Guarda as últimas N latências num buffer circular para calcular percentis
+// recentes sem manter histórico ilimitado.
+public class JanelaLatencias {
+
+    private final long[] amostras;
+    private int proxima;
+    private int tamanho;
+
+    public JanelaLatencias(int capacidade) {
+        this.amostras = new long[Math.max(1, capacidade)];
+    }
+
+    public synchronized void registrar(long latenciaNanos) {
+        amostras[proxima] = latenciaNanos;
+        proxima = (proxima + 1) % amostras.length;
+        if (tamanho < amostras.length) {
+            tamanho++;
+        }
+    }
+
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    // Percentil pelo método nearest-rank; devolve 0 se ainda não há amostras
+    public long percentilNanos(double percentil) {
+        long[] copia;
+        synchronized (this) {
+            if (tamanho == 0) {
+                return 0;
+            }
+            copia = Arrays.copyOf(amostras, tamanho);
+        }
+
+        Arrays.sort(copia);
+        int indice = (int) Math.ceil(percentil / 100.0 * copia.length) - 1;
+        return copia[Math.max(0, Math.min(copia.length - 1, indice))];
+    }
+
+    public long percentilMillis(double percentil) {
+        return Math.round(percentilNanos(percentil) / 1_000_000.0);
+    }
+}
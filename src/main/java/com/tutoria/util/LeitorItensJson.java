@@ -0,0 +1,159 @@
+package com.tutoria.util;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+// Lê de forma incremental a lista campo de um objeto JSON que chega em
+// trechos (como a resposta em streaming do Gemini) e entrega cada elemento
+// assim que ele fecha, convertido por um JsonReader só sobre aquele elemento.
+// Tudo antes do primeiro '{' e depois do objeto fechar é ignorado, o que
+// descarta cercas ```json e texto solto em volta sem passar regex no texto.
+public class LeitorItensJson<T> {
+
+    @FunctionalInterface
+    public interface ConversorItem<T> {
+        T ler(JsonReader leitor) throws IOException;
+    }
+
+    private final String campo;
+    private final EsquemaJson esquemaItem;
+    private final ConversorItem<T> conversor;
+    private final Consumer<T> aoCompletarItem;
+
+    private final StringBuilder item = new StringBuilder();
+    private final StringBuilder chave = new StringBuilder();
+    private String ultimaString;
+
+    private int profundidade;
+    private boolean emString;
+    private boolean escapando;
+    private boolean naLista;
+    private boolean dentroItem;
+    private boolean listaEncontrada;
+    private boolean objetoFechado;
+    private int itens;
+
+    public LeitorItensJson(String campo, ConversorItem<T> conversor, Consumer<T> aoCompletarItem) {
+        this(campo, null, conversor, aoCompletarItem);
+    }
+
+    // Com esquemaItem, cada elemento é validado antes de ser convertido
+    public LeitorItensJson(String campo, EsquemaJson esquemaItem, ConversorItem<T> conversor, Consumer<T> aoCompletarItem) {
+        this.campo = campo;
+        this.esquemaItem = esquemaItem;
+        this.conversor = conversor;
+        this.aoCompletarItem = aoCompletarItem;
+    }
+
+    public synchronized void alimentar(CharSequence trecho) {
+        for (int i = 0; i < trecho.length() && !objetoFechado; i++) {
+            processar(trecho.charAt(i));
+        }
+    }
+
+    private void processar(char c) {
+        if (profundidade == 0) {
+            if (c == '{') {
+                profundidade = 1;
+            }
+            return;
+        }
+
+        if (dentroItem) {
+            item.append(c);
+        }
+
+        if (emString) {
+            if (escapando) {
+                escapando = false;
+            } else if (c == '\\') {
+                escapando = true;
+            } else if (c == '"') {
+                emString = false;
+                if (profundidade == 1) {
+                    ultimaString = chave.toString();
+                }
+            } else if (profundidade == 1) {
+                chave.append(c);
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                emString = true;
+                if (profundidade == 1) {
+                    chave.setLength(0);
+                }
+            }
+            case '{', '[' -> {
+                if (naLista && profundidade == 2 && c == '{') {
+                    dentroItem = true;
+                    item.setLength(0);
+                    item.append(c);
+                } else if (profundidade == 1 && c == '[' && campo.equals(ultimaString)) {
+                    naLista = true;
+                    listaEncontrada = true;
+                }
+                profundidade++;
+            }
+            case '}', ']' -> {
+                profundidade--;
+                if (dentroItem && profundidade == 2) {
+                    dentroItem = false;
+                    emitir();
+                } else if (naLista && profundidade == 1) {
+                    naLista = false;
+                } else if (profundidade == 0) {
+                    objetoFechado = true;
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private void emitir() {
+        String texto = item.toString();
+        if (esquemaItem != null) {
+            esquemaItem.validar(JsonParser.parseString(texto), campo + "[" + itens + "]");
+        }
+
+        T valor;
+        try (JsonReader leitor = new JsonReader(new StringReader(texto))) {
+            valor = conversor.ler(leitor);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException("Item " + (itens + 1) + " de '" + campo + "' inválido: " + e.getMessage(), e);
+        }
+
+        itens++;
+        aoCompletarItem.accept(valor);
+    }
+
+    // Chamado com a resposta completa; falha se a lista não apareceu ou se o
+    // objeto ficou aberto (resposta truncada)
+    public synchronized int finalizar() {
+        if (!listaEncontrada) {
+            throw new JsonParseException("JSON não contém array '" + campo + "'");
+        }
+
+        if (!objetoFechado) {
+            throw new JsonParseException("JSON incompleto: a resposta terminou depois de " + itens + " itens de '" + campo + "'");
+        }
+
+        return itens;
+    }
+
+    public synchronized int getItens() {
+        return itens;
+    }
+
+    // O objeto raiz fechou; falso numa resposta cortada no meio
+    public synchronized boolean isCompleto() {
+        return objetoFechado;
+    }
+}
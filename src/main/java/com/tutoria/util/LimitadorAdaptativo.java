@@ -0,0 +1,195 @@
+package com.tutoria.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Limite de concorrência AIMD: cresce 1/limite a cada sucesso com o limite em
+// uso e é multiplicado por fatorReducao quando o serviço sinaliza sobrecarga
+// (429/503, timeout ou latência acima de fracaoLatenciaMaxima do tempo limite
+// da própria chamada, para que chamadas longas por natureza não contem como
+// sobrecarga).
+// Quem passa do limite espera numa fila limitada; com a fila cheia, ou depois
+// de maxEsperaMillis, a requisição é recusada com SobrecargaException.
+public class LimitadorAdaptativo {
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final int maxFila;
+    private final long maxEsperaMillis;
+    private final double fatorReducao;
+    private final double fracaoLatenciaMaxima;
+
+    private final ArrayDeque<CompletableFuture<Permissao>> fila = new ArrayDeque<>();
+
+    private double limite;
+    private int emUso;
+    // Média móvel da latência por tempo limite: chamadas de 3 minutos não
+    // puxam para cima o Retry-After calculado para as de 20 segundos
+    private final Map<Long, Double> latenciasMedias = new HashMap<>();
+
+    private long aceitas;
+    private long rejeitadas;
+    private long expiradas;
+    private long reducoes;
+
+    public LimitadorAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo, int maxFila,
+                               long maxEsperaMillis, double fatorReducao, double fracaoLatenciaMaxima) {
+        this.limiteMinimo = Math.max(1, limiteMinimo);
+        this.limiteMaximo = Math.max(this.limiteMinimo, limiteMaximo);
+        this.limite = Math.min(this.limiteMaximo, Math.max(this.limiteMinimo, limiteInicial));
+        this.maxFila = Math.max(0, maxFila);
+        this.maxEsperaMillis = maxEsperaMillis;
+        this.fatorReducao = fatorReducao;
+        this.fracaoLatenciaMaxima = fracaoLatenciaMaxima;
+    }
+
+    public CompletableFuture<Permissao> adquirir() {
+        CompletableFuture<Permissao> espera;
+
+        synchronized (this) {
+            if (fila.isEmpty() && emUso < limiteAtual()) {
+                return CompletableFuture.completedFuture(conceder());
+            }
+
+            if (fila.size() >= maxFila) {
+                rejeitadas++;
+                return CompletableFuture.failedFuture(
+                        new SobrecargaException("Serviço de IA sobrecarregado, tente novamente em instantes", retryAfterSegundos()));
+            }
+
+            espera = new CompletableFuture<>();
+            fila.addLast(espera);
+        }
+
+        // Cancelamento ou timeout tiram a espera da fila
+        espera.whenComplete((permissao, erro) -> {
+            if (erro != null) {
+                synchronized (this) {
+                    fila.remove(espera);
+                }
+            }
+        });
+
+        CompletableFuture.delayedExecutor(maxEsperaMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            SobrecargaException erro;
+            synchronized (this) {
+                erro = new SobrecargaException("Tempo de espera por uma vaga no serviço de IA esgotado", retryAfterSegundos());
+            }
+            if (espera.completeExceptionally(erro)) {
+                synchronized (this) {
+                    expiradas++;
+                }
+            }
+        });
+
+        return espera;
+    }
+
+    private Permissao conceder() {
+        emUso++;
+        aceitas++;
+        return new Permissao(emUso);
+    }
+
+    private int limiteAtual() {
+        return (int) limite;
+    }
+
+    // A vaga mais próxima de abrir é a da classe de chamadas mais rápida
+    private double latenciaMediaNanos() {
+        double menor = 0;
+        for (double media : latenciasMedias.values()) {
+            menor = menor == 0 ? media : Math.min(menor, media);
+        }
+        return menor;
+    }
+
+    private long retryAfterSegundos() {
+        return Math.max(1, Math.round(latenciaMediaNanos() / 1_000_000_000.0));
+    }
+
+    private void liberar(Permissao permissao, Resultado resultado, long latenciaNanos, long tempoLimiteNanos) {
+        List<CompletableFuture<Permissao>> liberadas = new ArrayList<>();
+        List<Permissao> concedidas = new ArrayList<>();
+
+        synchronized (this) {
+            emUso--;
+
+            if (resultado == Resultado.SUCESSO && fracaoLatenciaMaxima > 0 && tempoLimiteNanos > 0
+                    && latenciaNanos > tempoLimiteNanos * fracaoLatenciaMaxima) {
+                resultado = Resultado.SOBRECARGA;
+            }
+
+            if (resultado == Resultado.SUCESSO) {
+                latenciasMedias.merge(tempoLimiteNanos, (double) latenciaNanos,
+                        (media, nova) -> media * 0.9 + nova * 0.1);
+
+                // Só cresce se o limite estava de fato sendo usado
+                if (permissao.emUsoAoAdquirir * 2 >= limite) {
+                    limite = Math.min(limiteMaximo, limite + 1.0 / limite);
+                }
+            } else if (resultado == Resultado.SOBRECARGA) {
+                limite = Math.max(limiteMinimo, limite * fatorReducao);
+                reducoes++;
+            }
+
+            while (!fila.isEmpty() && emUso < limiteAtual()) {
+                liberadas.add(fila.pollFirst());
+                concedidas.add(conceder());
+            }
+        }
+
+        // Completa fora do lock para não rodar a próxima chamada segurando o monitor
+        for (int i = 0; i < liberadas.size(); i++) {
+            if (!liberadas.get(i).complete(concedidas.get(i))) {
+                concedidas.get(i).ignorar();
+            }
+        }
+    }
+
+    public synchronized int getLimite() { return limiteAtual(); }
+    public synchronized int getEmUso() { return emUso; }
+    public synchronized int getFila() { return fila.size(); }
+    public synchronized long getAceitas() { return aceitas; }
+    public synchronized long getRejeitadas() { return rejeitadas; }
+    public synchronized long getExpiradas() { return expiradas; }
+    public synchronized long getReducoes() { return reducoes; }
+    public synchronized long getLatenciaMediaMillis() { return Math.round(latenciaMediaNanos() / 1_000_000.0); }
+
+    private enum Resultado { SUCESSO, SOBRECARGA, IGNORADO }
+
+    public class Permissao {
+
+        private final int emUsoAoAdquirir;
+        private final AtomicBoolean liberada = new AtomicBoolean(false);
+
+        private Permissao(int emUsoAoAdquirir) {
+            this.emUsoAoAdquirir = emUsoAoAdquirir;
+        }
+
+        // tempoLimiteNanos é o timeout da chamada; 0 desliga a regra de latência
+        public void sucesso(long latenciaNanos, long tempoLimiteNanos) {
+            if (liberada.compareAndSet(false, true)) {
+                liberar(this, Resultado.SUCESSO, latenciaNanos, tempoLimiteNanos);
+            }
+        }
+
+        public void sobrecarga() {
+            if (liberada.compareAndSet(false, true)) {
+                liberar(this, Resultado.SOBRECARGA, 0, 0);
+            }
+        }
+
+        public void ignorar() {
+            if (liberada.compareAndSet(false, true)) {
+                liberar(this, Resultado.IGNORADO, 0, 0);
+            }
+        }
+    }
+}
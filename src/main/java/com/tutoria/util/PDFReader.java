@@ -1,47 +1,283 @@
 package com.tutoria.util;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Extrai o texto de PDFs sem copiar o arquivo inteiro para o heap. O PDFBox
+// guarda os bytes do documento num ScratchFile: até pdf.memoria.documento.mb
+// ficam em memória e o resto vai para arquivos temporários. O orçamento
+// global (pdf.memoria.total.mb) vale para todas as extrações em andamento;
+// quando ele acaba, o documento seguinte vai direto para o disco em vez de
+// esperar. Os objetos que o PDFBox monta ao ler as páginas continuam no heap.
+//
+// Documentos com pdf.paralelo.min.paginas ou mais são extraídos em faixas de
+// páginas num ForkJoinPool. Um PDDocument não pode ser lido por várias
+// threads, então cada faixa abre o próprio documento a partir do arquivo; o
+// upload recebido como InputStream é copiado para um arquivo temporário antes.
+//
+// Enquanto o upload é copiado, os bytes passam por um SHA-256; o texto de um
+// arquivo já visto vem do CacheTextoPDF sem abrir o PDFBox.
 public class PDFReader {
 
+    private static final int BYTES_POR_MB = 1024 * 1024;
+
+    // Compartilhado por todas as instâncias (AIService, AIController, ferramentas)
+    private static final int ORCAMENTO_TOTAL_MB = ConfigLoader.getIntProperty("pdf.memoria.total.mb", 64);
+    private static final Semaphore ORCAMENTO_GLOBAL = new Semaphore(ORCAMENTO_TOTAL_MB);
+
+    private static final boolean PARALELO = ConfigLoader.getBooleanProperty("pdf.paralelo.habilitado", true);
+    private static final int MIN_PAGINAS_PARALELO = ConfigLoader.getIntProperty("pdf.paralelo.min.paginas", 40);
+    private static final int PAGINAS_POR_PARTE = Math.max(1, ConfigLoader.getIntProperty("pdf.paralelo.paginas.por.parte", 20));
+    private static final ForkJoinPool POOL_EXTRACAO = new ForkJoinPool(
+            ConfigLoader.getIntProperty("pdf.paralelo.threads", Runtime.getRuntime().availableProcessors()));
+
+    private static final CacheTextoPDF CACHE_TEXTOS = criarCache();
+
+    private static final AtomicLong extracoes = new AtomicLong();
+    private static final AtomicLong extracoesSoEmDisco = new AtomicLong();
+    private static final AtomicLong extracoesParalelas = new AtomicLong();
+    private static final AtomicLong partesParalelas = new AtomicLong();
+
+    private final int orcamentoDocumentoMb;
+    private final File diretorioTemporario;
+
+    @FunctionalInterface
+    private interface Carregador {
+        PDDocument carregar(MemoryUsageSetting memoria) throws IOException;
+    }
+
+    public PDFReader() {
+        this(ConfigLoader.getIntProperty("pdf.memoria.documento.mb", 8),
+                diretorio(ConfigLoader.getProperty("pdf.memoria.diretorio", null)));
+    }
+
+    public PDFReader(int orcamentoDocumentoMb, File diretorioTemporario) {
+        this.orcamentoDocumentoMb = Math.min(orcamentoDocumentoMb, ORCAMENTO_TOTAL_MB);
+        this.diretorioTemporario = diretorioTemporario;
+    }
+
+    private static CacheTextoPDF criarCache() {
+        if (!ConfigLoader.getBooleanProperty("pdf.cache.habilitado", true)) {
+            return null;
+        }
+
+        ArmazemRespostas disco = null;
+        if (ConfigLoader.getBooleanProperty("pdf.cache.disco.habilitado", false)) {
+            Path diretorio = Path.of(ConfigLoader.getProperty("pdf.cache.disco.diretorio", "dados/cache-pdf"));
+            try {
+                disco = new ArmazemRespostas(diretorio,
+                        ConfigLoader.getLongProperty("pdf.cache.disco.max.bytes", 256L * 1024 * 1024), 0.5);
+                System.out.println("💾 Cache de textos de PDF carregado: " + disco.tamanho() + " entradas em " + diretorio.toAbsolutePath());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("⚠️ Cache de textos de PDF em disco desativado: " + e.getMessage());
+            }
+        }
+
+        return new CacheTextoPDF(
+                ConfigLoader.getIntProperty("pdf.cache.max.entradas", 1_000),
+                ConfigLoader.getLongProperty("pdf.cache.max.bytes", 64L * 1024 * 1024),
+                TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("pdf.cache.ttl.segundos", 24 * 60 * 60)),
+                disco,
+                TimeUnit.SECONDS.toMillis(ConfigLoader.getLongProperty("pdf.cache.disco.ttl.segundos", 30L * 24 * 60 * 60)));
+    }
+
+    private static File diretorio(String caminho) {
+        if (caminho == null) {
+            return null;
+        }
+
+        File diretorio = new File(caminho);
+        if (!diretorio.isDirectory() && !diretorio.mkdirs()) {
+            System.err.println("⚠️ Diretório temporário de PDFs indisponível, usando java.io.tmpdir: " + caminho);
+            return null;
+        }
+        return diretorio;
+    }
+
     public String extrairTextoDePDF(InputStream inputStream) throws IOException {
-        PDDocument documento = null;
-        String textoExtraido = "";
+        if (!PARALELO && CACHE_TEXTOS == null) {
+            return extrair(memoria -> PDDocument.load(inputStream, memoria), null);
+        }
 
+        Path temporario = diretorioTemporario != null
+                ? Files.createTempFile(diretorioTemporario.toPath(), "upload-", ".pdf")
+                : Files.createTempFile("upload-", ".pdf");
         try {
-            documento = PDDocument.load(inputStream);
-            PDFTextStripper stripper = new PDFTextStripper();
-            textoExtraido = stripper.getText(documento);
-
+            MessageDigest digest = Hash.novoDigest();
+            Files.copy(new DigestInputStream(inputStream, digest), temporario, StandardCopyOption.REPLACE_EXISTING);
+            return extrairComCache(HexFormat.of().formatHex(digest.digest()), temporario.toFile());
         } finally {
-            if (documento != null) {
-                documento.close();
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    public String extrairTextoDePDF(File arquivoPDF) throws IOException {
+        if (CACHE_TEXTOS == null) {
+            return extrair(memoria -> PDDocument.load(arquivoPDF, memoria), arquivoPDF);
+        }
+        return extrairComCache(hashArquivo(arquivoPDF), arquivoPDF);
+    }
+
+    private String extrairComCache(String hash, File arquivo) throws IOException {
+        if (CACHE_TEXTOS != null) {
+            String emCache = CACHE_TEXTOS.buscar(hash);
+            if (emCache != null) {
+                return emCache;
             }
         }
 
-        return textoExtraido;
+        String texto = extrair(memoria -> PDDocument.load(arquivo, memoria), arquivo);
+        if (CACHE_TEXTOS != null) {
+            CACHE_TEXTOS.guardar(hash, texto);
+        }
+        return texto;
     }
 
-    public String extrairTextoDePDF(File arquivoPDF) throws IOException {
-        PDDocument documento = null;
-        String textoExtraido = "";
+    private static String hashArquivo(File arquivo) throws IOException {
+        MessageDigest digest = Hash.novoDigest();
+        try (InputStream entrada = new DigestInputStream(Files.newInputStream(arquivo.toPath()), digest)) {
+            entrada.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // arquivo é null quando o documento não pode ser reaberto pelas faixas paralelas
+    private String extrair(Carregador carregador, File arquivo) throws IOException {
+        extracoes.incrementAndGet();
+
+        int reservadoMb = orcamentoDocumentoMb > 0 && ORCAMENTO_GLOBAL.tryAcquire(orcamentoDocumentoMb)
+                ? orcamentoDocumentoMb
+                : 0;
 
+        MemoryUsageSetting memoria;
+        if (reservadoMb > 0) {
+            memoria = MemoryUsageSetting.setupMixed((long) reservadoMb * BYTES_POR_MB);
+        } else {
+            extracoesSoEmDisco.incrementAndGet();
+            memoria = MemoryUsageSetting.setupTempFileOnly();
+        }
+        if (diretorioTemporario != null) {
+            memoria.setTempDir(diretorioTemporario);
+        }
+
+        try (PDDocument documento = carregador.carregar(memoria)) {
+            int paginas = documento.getNumberOfPages();
+            if (arquivo == null || !PARALELO || paginas < MIN_PAGINAS_PARALELO || POOL_EXTRACAO.getParallelism() < 2) {
+                PDFTextStripper stripper = new PDFTextStripper();
+                return stripper.getText(documento);
+            }
+            return extrairEmParalelo(documento, arquivo, paginas);
+        } finally {
+            if (reservadoMb > 0) {
+                ORCAMENTO_GLOBAL.release(reservadoMb);
+            }
+        }
+    }
+
+    // ========== EXTRAÇÃO PARALELA ==========
+
+    private String extrairEmParalelo(PDDocument documento, File arquivo, int paginas) throws IOException {
+        extracoesParalelas.incrementAndGet();
+
+        // Cada faixa reabre o documento: no máximo duas faixas por thread
+        int paginasPorFaixa = Math.max(PAGINAS_POR_PARTE, (paginas + 2 * POOL_EXTRACAO.getParallelism() - 1) / (2 * POOL_EXTRACAO.getParallelism()));
         try {
-            documento = PDDocument.load(arquivoPDF);
+            return POOL_EXTRACAO.invoke(new FaixaPaginas(documento, arquivo, 1, paginas, paginasPorFaixa));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Divide a faixa ao meio até paginasPorFaixa e junta os textos em ordem.
+    // A faixa que começa na página 1 usa o documento já aberto pelo chamador,
+    // que fica parado em invoke enquanto isso; as outras abrem o seu.
+    private static final class FaixaPaginas extends RecursiveTask<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Só existe durante a extração; a tarefa nunca é serializada
+        private final transient PDDocument aberto;
+        private final File arquivo;
+        private final int inicio;
+        private final int fim;
+        private final int paginasPorFaixa;
+
+        private FaixaPaginas(PDDocument aberto, File arquivo, int inicio, int fim, int paginasPorFaixa) {
+            this.aberto = aberto;
+            this.arquivo = arquivo;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.paginasPorFaixa = paginasPorFaixa;
+        }
+
+        @Override
+        protected String compute() {
+            if (fim - inicio + 1 <= paginasPorFaixa) {
+                partesParalelas.incrementAndGet();
+                try {
+                    return extrairFaixa();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int meio = (inicio + fim) >>> 1;
+            FaixaPaginas esquerda = new FaixaPaginas(aberto, arquivo, inicio, meio, paginasPorFaixa);
+            FaixaPaginas direita = new FaixaPaginas(aberto, arquivo, meio + 1, fim, paginasPorFaixa);
+            esquerda.fork();
+            String textoDireita = direita.compute();
+            return esquerda.join() + textoDireita;
+        }
+
+        private String extrairFaixa() throws IOException {
             PDFTextStripper stripper = new PDFTextStripper();
-            textoExtraido = stripper.getText(documento);
+            stripper.setStartPage(inicio);
+            stripper.setEndPage(fim);
 
-        } finally {
-            if (documento != null) {
-                documento.close();
+            if (inicio == 1) {
+                return stripper.getText(aberto);
+            }
+
+            try (PDDocument documento = PDDocument.load(arquivo, MemoryUsageSetting.setupTempFileOnly())) {
+                return stripper.getText(documento);
             }
         }
+    }
 
-        return textoExtraido;
+    // ========== MÉTRICAS ==========
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("extracoes", extracoes.get());
+        metricas.put("extracoesSoEmDisco", extracoesSoEmDisco.get());
+        metricas.put("orcamentoDocumentoMb", orcamentoDocumentoMb);
+        metricas.put("orcamentoTotalMb", ORCAMENTO_TOTAL_MB);
+        metricas.put("orcamentoLivreMb", ORCAMENTO_GLOBAL.availablePermits());
+        metricas.put("extracoesParalelas", extracoesParalelas.get());
+        metricas.put("partesParalelas", partesParalelas.get());
+        if (CACHE_TEXTOS != null) {
+            metricas.put("cacheTextos", CACHE_TEXTOS.metricas());
+        }
+        return metricas;
     }
 }
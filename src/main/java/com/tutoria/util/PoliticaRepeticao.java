@@ -0,0 +1,134 @@
+package com.tutoria.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Repete operações assíncronas com backoff exponencial limitado e "full jitter"
+// (espera sorteada entre 0 e min(teto, base * 2^n)).
+// O orçamento evita tempestades de repetição: cada operação nova deposita
+// proporcaoOrcamento fichas (até maxSaldo) e cada repetição ou hedge gasta uma.
+public class PoliticaRepeticao {
+
+    private final int maxTentativas;
+    private final long baseMillis;
+    private final long tetoMillis;
+    private final double proporcaoOrcamento;
+    private final double maxSaldo;
+
+    private double saldo;
+
+    private final AtomicLong operacoes = new AtomicLong();
+    private final AtomicLong repeticoes = new AtomicLong();
+    private final AtomicLong negadasPorOrcamento = new AtomicLong();
+    private final AtomicLong recuperadas = new AtomicLong();
+
+    public PoliticaRepeticao(int maxTentativas, long baseMillis, long tetoMillis,
+                             double proporcaoOrcamento, double maxSaldo) {
+        this.maxTentativas = Math.max(1, maxTentativas);
+        this.baseMillis = Math.max(1, baseMillis);
+        this.tetoMillis = Math.max(this.baseMillis, tetoMillis);
+        this.proporcaoOrcamento = proporcaoOrcamento;
+        this.maxSaldo = maxSaldo;
+        this.saldo = maxSaldo;
+    }
+
+    // esperaSugerida permite respeitar um Retry-After vindo do servidor (0 se não houver)
+    public <T> CompletableFuture<T> executar(Supplier<CompletableFuture<T>> tentativa,
+                                             Predicate<Throwable> repetivel,
+                                             ToLongFunction<Throwable> esperaSugerida) {
+        operacoes.incrementAndGet();
+        depositar();
+
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> atual = new AtomicReference<>();
+
+        resultado.whenComplete((valor, erro) -> {
+            CompletableFuture<T> emAndamento = atual.get();
+            if (resultado.isCancelled() && emAndamento != null) {
+                emAndamento.cancel(true);
+            }
+        });
+
+        tentar(1, tentativa, repetivel, esperaSugerida, resultado, atual);
+        return resultado;
+    }
+
+    private <T> void tentar(int numero, Supplier<CompletableFuture<T>> tentativa, Predicate<Throwable> repetivel,
+                            ToLongFunction<Throwable> esperaSugerida,
+                            CompletableFuture<T> resultado, AtomicReference<CompletableFuture<T>> atual) {
+        if (resultado.isDone()) {
+            return;
+        }
+
+        CompletableFuture<T> futuro;
+        try {
+            futuro = tentativa.get();
+        } catch (RuntimeException e) {
+            resultado.completeExceptionally(e);
+            return;
+        }
+
+        atual.set(futuro);
+        if (resultado.isCancelled()) {
+            futuro.cancel(true);
+            return;
+        }
+
+        futuro.whenComplete((valor, erro) -> {
+            if (erro == null) {
+                if (numero > 1) {
+                    recuperadas.incrementAndGet();
+                }
+                resultado.complete(valor);
+                return;
+            }
+
+            Throwable causa = Futuros.causaReal(erro);
+            if (numero >= maxTentativas || resultado.isDone() || !repetivel.test(causa)) {
+                resultado.completeExceptionally(causa);
+                return;
+            }
+
+            if (!gastarFicha()) {
+                negadasPorOrcamento.incrementAndGet();
+                resultado.completeExceptionally(causa);
+                return;
+            }
+
+            repeticoes.incrementAndGet();
+            long espera = Math.min(tetoMillis, Math.max(atrasoComJitter(numero), esperaSugerida.applyAsLong(causa)));
+            CompletableFuture.delayedExecutor(espera, TimeUnit.MILLISECONDS)
+                    .execute(() -> tentar(numero + 1, tentativa, repetivel, esperaSugerida, resultado, atual));
+        });
+    }
+
+    private long atrasoComJitter(int tentativasFeitas) {
+        long exponencial = baseMillis << Math.min(30, tentativasFeitas - 1);
+        long limite = Math.min(tetoMillis, exponencial);
+        return ThreadLocalRandom.current().nextLong(limite + 1);
+    }
+
+    private synchronized void depositar() {
+        saldo = Math.min(maxSaldo, saldo + proporcaoOrcamento);
+    }
+
+    public synchronized boolean gastarFicha() {
+        if (saldo < 1) {
+            return false;
+        }
+        saldo -= 1;
+        return true;
+    }
+
+    public synchronized double getSaldo() { return saldo; }
+    public long getOperacoes() { return operacoes.get(); }
+    public long getRepeticoes() { return repeticoes.get(); }
+    public long getNegadasPorOrcamento() { return negadasPorOrcamento.get(); }
+    public long getRecuperadas() { return recuperadas.get(); }
+}
@@ -0,0 +1,68 @@
+package com.tutoria.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+// ThreadPool do Jetty que executa cada tarefa (aceitação, seleção e
+// processamento das requisições) em uma thread virtual própria.
+public class PoolThreadsVirtuais extends AbstractLifeCycle implements ThreadPool {
+
+    private static final long TIMEOUT_PARADA_MS = 30_000;
+
+    private final AtomicInteger threadsAtivas = new AtomicInteger();
+    private volatile ExecutorService executor;
+
+    @Override
+    protected void doStart() throws Exception {
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("jetty-virtual-", 0).factory());
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        executor.shutdown();
+
+        if (!executor.awaitTermination(TIMEOUT_PARADA_MS, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+
+        super.doStop();
+    }
+
+    @Override
+    public void execute(Runnable tarefa) {
+        executor.execute(() -> {
+            threadsAtivas.incrementAndGet();
+            try {
+                tarefa.run();
+            } finally {
+                threadsAtivas.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getThreads() {
+        return threadsAtivas.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import spark.ExceptionMapper;
+import spark.embeddedserver.EmbeddedServer;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyServer;
+import spark.embeddedserver.jetty.JettyHandler;
+import spark.embeddedserver.jetty.JettyServerFactory;
+import spark.http.matching.MatcherFilter;
+import spark.route.Routes;
+import spark.staticfiles.StaticFilesConfiguration;
+
+public class ServidorEmbutido {
+
+    public static final String MODO_PLATAFORMA = "plataforma";
+    public static final String MODO_VIRTUAL = "virtual";
+
+    // Deve ser chamado antes da primeira rota ser registrada no Spark.
+    public static void configurar() {
+        String modo = ConfigLoader.getProperty("servidor.threads", MODO_PLATAFORMA);
+        ThreadPool threadPool = criarThreadPool(modo);
+
+        if (MODO_VIRTUAL.equals(modo) && ConfigLoader.getBooleanProperty("servidor.threads.auditoria", true)) {
+            AuditoriaPinning.iniciar(ConfigLoader.getLongProperty("servidor.threads.auditoria.limite.ms", 20));
+        }
+
+        System.out.println("🧵 Modo de threads do servidor: " + modo);
+
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                (rotas, arquivosEstaticos, exceptionMapper, hasMultipleHandler) ->
+                        criar(rotas, arquivosEstaticos, exceptionMapper, hasMultipleHandler, threadPool));
+    }
+
+    public static ThreadPool criarThreadPool(String modo) {
+        switch (modo) {
+            case MODO_PLATAFORMA:
+                return new QueuedThreadPool(ConfigLoader.getIntProperty("servidor.threads.max", 200));
+            case MODO_VIRTUAL:
+                return new PoolThreadsVirtuais();
+            default:
+                throw new IllegalArgumentException("Modo de threads inválido: " + modo
+                        + " (use '" + MODO_PLATAFORMA + "' ou '" + MODO_VIRTUAL + "')");
+        }
+    }
+
+    private static EmbeddedServer criar(Routes rotas, StaticFilesConfiguration arquivosEstaticos,
+                                        ExceptionMapper exceptionMapper, boolean hasMultipleHandler,
+                                        ThreadPool threadPool) {
+        MatcherFilter matcherFilter = new MatcherFilter(rotas, arquivosEstaticos, exceptionMapper, false, hasMultipleHandler);
+        matcherFilter.init(null);
+
+        JettyHandler handler = new HandlerAssincrono(matcherFilter);
+        handler.getSessionCookieConfig().setHttpOnly(true);
+
+        return new EmbeddedJettyServer(new FabricaJetty(), handler).withThreadPool(threadPool);
+    }
+
+    private static class FabricaJetty implements JettyServerFactory {
+
+        @Override
+        public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+            if (maxThreads > 0) {
+                return new Server(new QueuedThreadPool(maxThreads, minThreads, threadTimeoutMillis));
+            }
+
+            return new Server();
+        }
+
+        @Override
+        public Server create(ThreadPool threadPool) {
+            return threadPool != null ? new Server(threadPool) : new Server();
+        }
+    }
+
+    // O Spark serializa o retorno da rota e fecha o output stream logo em seguida.
+    // Quando a rota inicia um AsyncContext, a resposta passa a ser escrita por ele,
+    // então aqui ela é reportada como já "commitada" para o Spark não tocar nela.
+    private static class HandlerAssincrono extends JettyHandler {
+
+        HandlerAssincrono(Filter filter) {
+            super(filter);
+        }
+
+        @Override
+        public void doHandle(String target, Request baseRequest, HttpServletRequest request,
+                             HttpServletResponse response) throws IOException, ServletException {
+            super.doHandle(target, baseRequest, request, new HttpServletResponseWrapper(response) {
+                @Override
+                public boolean isCommitted() {
+                    return request.isAsyncStarted() || super.isCommitted();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Servidor local que imita a API do Gemini (generateContent e
+// streamGenerateContent?alt=sse) para testes de carga sem rede e sem cota.
+// Aponte o TutorIA para ele com ai.gemini.url.base=http://localhost:8089/v1beta
+//
+// Uso: ServidorGeminiSimulado [porta=8089] [latencia=lognormal:800:0.5] [erros=0.02]
+//                             [rajada429=60:5] [trechos=12] [semente=42]
+//   latencia: fixa:MS | uniforme:MIN:MAX | lognormal:MEDIANA:SIGMA
+//   erros:    fração das requisições que recebem 500
+//   rajada429: a cada P segundos, responde 429 durante D segundos (0 desliga)
+//   trechos:  quantos eventos SSE cada resposta em streaming tem
+public class ServidorGeminiSimulado {
+
+    private static final Pattern QUANTIDADE_QUESTOES = Pattern.compile("Crie (\\d+) questões");
+    private static final Pattern QUANTIDADE_FLASHCARDS = Pattern.compile("Crie (\\d+) flashcards");
+
+    private final Gson gson = new Gson();
+    private final Random aleatorio;
+    private final String latencia;
+    private final double taxaErros;
+    private final long periodoRajadaMillis;
+    private final long duracaoRajadaMillis;
+    private final int trechos;
+    private final long inicio = System.currentTimeMillis();
+
+    private final Map<Integer, AtomicLong> respostasPorStatus = new LinkedHashMap<>();
+
+    public ServidorGeminiSimulado(String latencia, double taxaErros, long periodoRajadaSegundos,
+                                  long duracaoRajadaSegundos, int trechos, long semente) {
+        this.latencia = latencia;
+        this.taxaErros = taxaErros;
+        this.periodoRajadaMillis = periodoRajadaSegundos * 1000;
+        this.duracaoRajadaMillis = duracaoRajadaSegundos * 1000;
+        this.trechos = Math.max(1, trechos);
+        this.aleatorio = new Random(semente);
+
+        for (int status : new int[]{200, 429, 500}) {
+            respostasPorStatus.put(status, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        opcoes.put("porta", "8089");
+        opcoes.put("latencia", "lognormal:800:0.5");
+        opcoes.put("erros", "0.02");
+        opcoes.put("rajada429", "60:5");
+        opcoes.put("trechos", "12");
+        opcoes.put("semente", "42");
+
+        for (String arg : args) {
+            String[] par = arg.split("=", 2);
+            if (par.length != 2 || !opcoes.containsKey(par[0])) {
+                System.err.println("Opção desconhecida: " + arg + " (aceitas: " + opcoes.keySet() + ")");
+                System.exit(1);
+            }
+            opcoes.put(par[0], par[1]);
+        }
+
+        String[] rajada = opcoes.get("rajada429").split(":");
+        ServidorGeminiSimulado simulado = new ServidorGeminiSimulado(
+                opcoes.get("latencia"),
+                Double.parseDouble(opcoes.get("erros")),
+                Long.parseLong(rajada[0]),
+                rajada.length > 1 ? Long.parseLong(rajada[1]) : 0,
+                Integer.parseInt(opcoes.get("trechos")),
+                Long.parseLong(opcoes.get("semente")));
+
+        int porta = Integer.parseInt(opcoes.get("porta"));
+        simulado.iniciar(porta);
+
+        System.out.println("🧪 Gemini simulado em http://localhost:" + porta + "/v1beta " + opcoes);
+    }
+
+    public HttpServer iniciar(int porta) throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(porta), 1024);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.createContext("/", this::atender);
+        servidor.start();
+        return servidor;
+    }
+
+    // ========== ATENDIMENTO ==========
+
+    private void atender(HttpExchange troca) throws IOException {
+        try (troca) {
+            String caminho = troca.getRequestURI().getPath();
+            boolean streaming = caminho.endsWith(":streamGenerateContent");
+
+            if (!"POST".equals(troca.getRequestMethod())
+                    || !(streaming || caminho.endsWith(":generateContent"))) {
+                responderErro(troca, 404, "NOT_FOUND", "Rota não simulada: " + caminho);
+                return;
+            }
+
+            JsonObject corpo = gson.fromJson(
+                    new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+            String prompt = extrairPrompt(corpo);
+
+            long latenciaMillis;
+            boolean falhar;
+            synchronized (aleatorio) {
+                latenciaMillis = sortearLatencia();
+                falhar = aleatorio.nextDouble() < taxaErros;
+            }
+
+            if (emRajada429()) {
+                troca.getResponseHeaders().add("Retry-After", "1");
+                responderErro(troca, 429, "RESOURCE_EXHAUSTED", "Resource has been exhausted (e.g. check quota).");
+                return;
+            }
+
+            if (falhar) {
+                dormir(latenciaMillis / 2);
+                responderErro(troca, 500, "INTERNAL", "An internal error has occurred.");
+                return;
+            }
+
+            // Como no Gemini, a saída além de maxOutputTokens é cortada (aqui
+            // estimando 4 caracteres por token) e o motivo vira MAX_TOKENS
+            String texto = gerarTexto(prompt);
+            String finishReason = "STOP";
+            int limiteCaracteres = limiteSaida(corpo) * 4;
+            if (texto.length() > limiteCaracteres) {
+                texto = texto.substring(0, limiteCaracteres);
+                finishReason = "MAX_TOKENS";
+            }
+
+            if (streaming) {
+                responderStream(troca, texto, finishReason, latenciaMillis);
+            } else {
+                dormir(latenciaMillis);
+                responderJson(troca, 200, montarResposta(texto, prompt.length(), finishReason));
+            }
+        } catch (RuntimeException e) {
+            responderErro(troca, 400, "INVALID_ARGUMENT", "Requisição inválida: " + e.getMessage());
+        }
+    }
+
+    // O tempo até o primeiro trecho é 30% da latência sorteada; o resto se
+    // distribui entre os trechos seguintes
+    private void responderStream(HttpExchange troca, String texto, String motivoFim, long latenciaMillis) throws IOException {
+        troca.getResponseHeaders().add("Content-Type", "text/event-stream");
+        dormir(latenciaMillis * 3 / 10);
+        troca.sendResponseHeaders(200, 0);
+        contar(200);
+
+        int tamanhoTrecho = Math.max(1, (texto.length() + trechos - 1) / trechos);
+        long pausa = latenciaMillis * 7 / 10 / trechos;
+        OutputStream saida = troca.getResponseBody();
+
+        for (int inicioTrecho = 0; inicioTrecho < texto.length(); inicioTrecho += tamanhoTrecho) {
+            int fim = Math.min(texto.length(), inicioTrecho + tamanhoTrecho);
+            String finishReason = fim == texto.length() ? motivoFim : null;
+
+            String evento = "data: " + gson.toJson(montarResposta(texto.substring(inicioTrecho, fim), 0, finishReason)) + "\r\n\r\n";
+            saida.write(evento.getBytes(StandardCharsets.UTF_8));
+            saida.flush();
+
+            if (finishReason == null) {
+                dormir(pausa);
+            }
+        }
+    }
+
+    private JsonObject montarResposta(String texto, int tamanhoPrompt, String finishReason) {
+        JsonObject parte = new JsonObject();
+        parte.addProperty("text", texto);
+
+        JsonArray partes = new JsonArray();
+        partes.add(parte);
+
+        JsonObject conteudo = new JsonObject();
+        conteudo.add("parts", partes);
+        conteudo.addProperty("role", "model");
+
+        JsonObject candidato = new JsonObject();
+        candidato.add("content", conteudo);
+        if (finishReason != null) {
+            candidato.addProperty("finishReason", finishReason);
+        }
+        candidato.addProperty("index", 0);
+
+        JsonArray candidatos = new JsonArray();
+        candidatos.add(candidato);
+
+        JsonObject uso = new JsonObject();
+        uso.addProperty("promptTokenCount", tamanhoPrompt / 4);
+        uso.addProperty("candidatesTokenCount", texto.length() / 4);
+        uso.addProperty("totalTokenCount", (tamanhoPrompt + texto.length()) / 4);
+
+        JsonObject resposta = new JsonObject();
+        resposta.add("candidates", candidatos);
+        resposta.add("usageMetadata", uso);
+        resposta.addProperty("modelVersion", "simulado");
+        return resposta;
+    }
+
+    private void responderErro(HttpExchange troca, int status, String codigo, String mensagem) throws IOException {
+        JsonObject erro = new JsonObject();
+        erro.addProperty("code", status);
+        erro.addProperty("message", mensagem);
+        erro.addProperty("status", codigo);
+
+        JsonObject corpo = new JsonObject();
+        corpo.add("error", erro);
+        responderJson(troca, status, corpo);
+    }
+
+    private void responderJson(HttpExchange troca, int status, JsonObject corpo) throws IOException {
+        byte[] bytes = gson.toJson(corpo).getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        troca.sendResponseHeaders(status, bytes.length);
+        troca.getResponseBody().write(bytes);
+        contar(status);
+    }
+
+    // ========== CONTEÚDO SIMULADO ==========
+
+    private String extrairPrompt(JsonObject corpo) {
+        StringBuilder prompt = new StringBuilder();
+        for (var conteudo : corpo.getAsJsonArray("contents")) {
+            for (var parte : conteudo.getAsJsonObject().getAsJsonArray("parts")) {
+                JsonObject parteObj = parte.getAsJsonObject();
+                if (parteObj.has("text")) {
+                    prompt.append(parteObj.get("text").getAsString());
+                }
+            }
+        }
+        return prompt.toString();
+    }
+
+    private int limiteSaida(JsonObject corpo) {
+        JsonObject config = corpo.getAsJsonObject("generationConfig");
+        return config != null && config.has("maxOutputTokens")
+                ? config.get("maxOutputTokens").getAsInt()
+                : Integer.MAX_VALUE / 4;
+    }
+
+    private String gerarTexto(String prompt) {
+        if (prompt.contains("\"questoes\"")) {
+            return gerarQuiz(quantidade(QUANTIDADE_QUESTOES, prompt, 5), prompt);
+        }
+
+        if (prompt.contains("\"flashcards\"")) {
+            return gerarFlashcards(quantidade(QUANTIDADE_FLASHCARDS, prompt, 10));
+        }
+
+        StringBuilder markdown = new StringBuilder("## Resumo simulado\n\n");
+        for (int i = 1; i <= 6; i++) {
+            markdown.append("### Tópico ").append(i).append("\n\n")
+                    .append("- **Conceito ").append(i).append("**: explicação gerada pelo servidor simulado.\n")
+                    .append("- Exemplo prático do conceito ").append(i).append(".\n\n");
+        }
+        return markdown.toString();
+    }
+
+    // Cada pergunta cita uma palavra diferente do conteúdo, pulando as que já
+    // aparecem nas questões listadas como existentes, para que fatias
+    // diferentes gerem perguntas diferentes
+    private String gerarQuiz(int quantidade, String prompt) {
+        int inicioConteudo = prompt.indexOf("CONTEÚDO:");
+        String[] palavras = (inicioConteudo >= 0 ? prompt.substring(inicioConteudo + 9) : prompt).split("[^\\p{L}]+");
+        int proxima = 0;
+
+        JsonArray questoes = new JsonArray();
+        for (int i = 1; i <= quantidade; i++) {
+            String tema = "tema" + i;
+            while (proxima < palavras.length) {
+                String palavra = palavras[proxima++];
+                if (palavra.length() >= 4 && !prompt.contains("sobre " + palavra + "?")) {
+                    tema = palavra;
+                    break;
+                }
+            }
+
+            JsonArray opcoes = new JsonArray();
+            for (char letra = 'A'; letra <= 'D'; letra++) {
+                opcoes.add(letra + ") Alternativa " + letra + " da questão " + i);
+            }
+
+            JsonObject questao = new JsonObject();
+            questao.addProperty("pergunta", "Pergunta simulada sobre " + tema + "?");
+            questao.add("opcoes", opcoes);
+            questao.addProperty("resposta_correta", opcoes.get(i % 4).getAsString());
+            questoes.add(questao);
+        }
+
+        JsonObject quiz = new JsonObject();
+        quiz.add("questoes", questoes);
+        return gson.toJson(quiz);
+    }
+
+    private String gerarFlashcards(int quantidade) {
+        JsonArray flashcards = new JsonArray();
+        for (int i = 1; i <= quantidade; i++) {
+            JsonObject card = new JsonObject();
+            card.addProperty("frente", "Conceito simulado " + i);
+            card.addProperty("verso", "Explicação simulada do conceito " + i + ".");
+            flashcards.add(card);
+        }
+
+        JsonObject corpo = new JsonObject();
+        corpo.add("flashcards", flashcards);
+        return gson.toJson(corpo);
+    }
+
+    private int quantidade(Pattern padrao, String prompt, int padraoQuantidade) {
+        Matcher matcher = padrao.matcher(prompt);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : padraoQuantidade;
+    }
+
+    // ========== LATÊNCIA, ERROS E RAJADAS ==========
+
+    private long sortearLatencia() {
+        String[] partes = latencia.split(":");
+
+        switch (partes[0]) {
+            case "fixa":
+                return Long.parseLong(partes[1]);
+            case "uniforme": {
+                long minimo = Long.parseLong(partes[1]);
+                long maximo = Long.parseLong(partes[2]);
+                return minimo + (long) (aleatorio.nextDouble() * (maximo - minimo));
+            }
+            case "lognormal": {
+                double mediana = Double.parseDouble(partes[1]);
+                double sigma = Double.parseDouble(partes[2]);
+                return Math.round(mediana * Math.exp(sigma * aleatorio.nextGaussian()));
+            }
+            default:
+                throw new IllegalArgumentException("Distribuição de latência desconhecida: " + latencia);
+        }
+    }
+
+    private boolean emRajada429() {
+        if (periodoRajadaMillis <= 0 || duracaoRajadaMillis <= 0) {
+            return false;
+        }
+
+        long decorrido = System.currentTimeMillis() - inicio;
+        return decorrido % periodoRajadaMillis >= periodoRajadaMillis - duracaoRajadaMillis;
+    }
+
+    private void contar(int status) {
+        AtomicLong contador = respostasPorStatus.get(status);
+        if (contador != null) {
+            contador.incrementAndGet();
+        }
+    }
+
+    public Map<Integer, Long> getRespostasPorStatus() {
+        Map<Integer, Long> copia = new LinkedHashMap<>();
+        respostasPorStatus.forEach((status, contador) -> copia.put(status, contador.get()));
+        return copia;
+    }
+
+    private void dormir(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tutoria.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Agrupa chamadas idênticas em andamento: a primeira dispara a operação e as
+// seguintes apenas aguardam o mesmo resultado (ou o mesmo erro). Cada chamador
+// recebe o seu próprio futuro; cancelar um deles não afeta os outros, e a
+// operação de origem só é cancelada quando todos desistirem.
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Voo<V>> emAndamento = new ConcurrentHashMap<>();
+
+    private final AtomicLong chamadasOriginais = new AtomicLong();
+    private final AtomicLong chamadasEconomizadas = new AtomicLong();
+    private final AtomicLong voosCancelados = new AtomicLong();
+
+    public CompletableFuture<V> executar(K chave, Supplier<CompletableFuture<V>> operacao) {
+        while (true) {
+            Voo<V> novo = new Voo<>();
+            Voo<V> existente = emAndamento.putIfAbsent(chave, novo);
+            Voo<V> voo = existente != null ? existente : novo;
+
+            if (!voo.assinar()) {
+                emAndamento.remove(chave, voo);
+                continue;
+            }
+
+            if (existente == null) {
+                chamadasOriginais.incrementAndGet();
+                iniciar(chave, novo, operacao);
+            } else {
+                chamadasEconomizadas.incrementAndGet();
+            }
+
+            CompletableFuture<V> assinatura = new CompletableFuture<>();
+            voo.resultado.whenComplete((valor, erro) -> {
+                if (erro != null) {
+                    assinatura.completeExceptionally(erro);
+                } else {
+                    assinatura.complete(valor);
+                }
+            });
+            assinatura.whenComplete((valor, erro) -> {
+                if (assinatura.isCancelled() && voo.cancelarAssinatura()) {
+                    emAndamento.remove(chave, voo);
+                    voosCancelados.incrementAndGet();
+                }
+            });
+
+            return assinatura;
+        }
+    }
+
+    private void iniciar(K chave, Voo<V> voo, Supplier<CompletableFuture<V>> operacao) {
+        CompletableFuture<V> origem;
+        try {
+            origem = operacao.get();
+        } catch (RuntimeException e) {
+            origem = CompletableFuture.failedFuture(e);
+        }
+
+        voo.origem = origem;
+        origem.whenComplete((valor, erro) -> {
+            emAndamento.remove(chave, voo);
+            if (erro != null) {
+                voo.resultado.completeExceptionally(Futuros.causaReal(erro));
+            } else {
+                voo.resultado.complete(valor);
+            }
+        });
+    }
+
+    public int getEmAndamento() { return emAndamento.size(); }
+    public long getChamadasOriginais() { return chamadasOriginais.get(); }
+    public long getChamadasEconomizadas() { return chamadasEconomizadas.get(); }
+    public long getVoosCancelados() { return voosCancelados.get(); }
+
+    private static class Voo<V> {
+        final CompletableFuture<V> resultado = new CompletableFuture<>();
+        volatile CompletableFuture<V> origem;
+        private int assinantes = 0;
+        private boolean abandonado = false;
+
+        synchronized boolean assinar() {
+            if (abandonado) {
+                return false;
+            }
+            assinantes++;
+            return true;
+        }
+
+        // Retorna true se esta era a última assinatura e o voo foi abandonado.
+        synchronized boolean cancelarAssinatura() {
+            assinantes--;
+
+            if (assinantes > 0 || resultado.isDone()) {
+                return false;
+            }
+
+            abandonado = true;
+            if (origem != null) {
+                origem.cancel(true);
+            }
+            resultado.cancel(true);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.tutoria.util;
+
+import java.io.IOException;
+
+// Lançada quando uma operação é recusada localmente para proteger o servidor;
+// os controllers respondem 503 com o cabeçalho Retry-After.
+public class SobrecargaException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSegundos;
+
+    public SobrecargaException(String mensagem, long retryAfterSegundos) {
+        super(mensagem);
+        this.retryAfterSegundos = Math.max(1, retryAfterSegundos);
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
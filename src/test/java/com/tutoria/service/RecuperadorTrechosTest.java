@@ -0,0 +1,52 @@
+package com.tutoria.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tutoria.util.DivisorTexto;
+
+public class RecuperadorTrechosTest {
+
+    private static String apostila() {
+        StringBuilder texto = new StringBuilder();
+        for (int capitulo = 1; capitulo <= 30; capitulo++) {
+            texto.append("Capítulo ").append(capitulo).append(" - Tema").append(capitulo).append("\n\n");
+            for (int frase = 0; frase < 12; frase++) {
+                texto.append("Leitura do capítulo sobre tema").append(capitulo).append(" com exemplos resolvidos. ");
+            }
+            texto.append("\n\n");
+        }
+        return texto.toString();
+    }
+
+    @Test
+    void documentoCurtoSegueInteiro() {
+        String texto = "Texto curto sobre fotossíntese.";
+        assertEquals(texto, new RecuperadorTrechos().contexto(null, texto, "fotossíntese"));
+    }
+
+    @Test
+    void mandaSoOsTrechosDaPergunta() {
+        String texto = apostila();
+        String contexto = new RecuperadorTrechos().contexto("apostila", texto, "O que é o tema17?");
+
+        assertTrue(contexto.length() < texto.length() / 3);
+        assertTrue(contexto.contains("tema17"));
+        assertFalse(contexto.startsWith("Capítulo 1 "));
+    }
+
+    @Test
+    void semTermoEmComumMandaOComecoDoDocumento() {
+        String texto = apostila();
+        List<String> trechos = DivisorTexto.dividir(texto, 1_500);
+
+        String contexto = new RecuperadorTrechos().contexto("apostila", texto, "equação de segundo grau");
+
+        assertEquals(String.join("\n\n[...]\n\n", trechos.subList(0, 6)), contexto);
+    }
+}
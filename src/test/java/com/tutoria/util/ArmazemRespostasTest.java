@@ -0,0 +1,189 @@
+package com.tutoria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArmazemRespostasTest {
+
+    private static final long TTL = 60_000;
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private static final String A = Hash.sha256("a");
+    private static final String B = Hash.sha256("b");
+    private static final String C = Hash.sha256("c");
+
+    @TempDir
+    Path diretorio;
+
+    private ArmazemRespostas abrir() throws IOException {
+        return new ArmazemRespostas(diretorio, MAX_BYTES, 0.5);
+    }
+
+    private Path arquivo() {
+        return diretorio.resolve("respostas.log");
+    }
+
+    @Test
+    void mantemEntradasDepoisDeReabrir() throws IOException {
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+            armazem.guardar(B, "resposta b", TTL);
+            armazem.guardar(A, "resposta a2", TTL);
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertEquals("resposta a2", armazem.buscar(A));
+            assertEquals("resposta b", armazem.buscar(B));
+            assertEquals(2, armazem.tamanho());
+        }
+    }
+
+    @Test
+    void descartaRegistroIncompletoNoFim() throws IOException {
+        long primeiro;
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+            primeiro = armazem.getBytesArquivo();
+            armazem.guardar(B, "resposta b", TTL);
+        }
+
+        // Queda no meio da escrita do segundo registro
+        try (FileChannel canal = FileChannel.open(arquivo(), StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 5);
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertEquals("resposta a", armazem.buscar(A));
+            assertNull(armazem.buscar(B));
+            assertEquals(primeiro, armazem.getBytesArquivo());
+
+            armazem.guardar(C, "resposta c", TTL);
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertEquals("resposta a", armazem.buscar(A));
+            assertEquals("resposta c", armazem.buscar(C));
+        }
+    }
+
+    @Test
+    void preservaRegistrosDepoisDeCabecalhoCorrompidoNoMeio() throws IOException {
+        long primeiro;
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+            primeiro = armazem.getBytesArquivo();
+            armazem.guardar(B, "resposta b", TTL);
+            armazem.guardar(C, "resposta c", TTL);
+        }
+        long tamanhoOriginal = Files.size(arquivo());
+
+        // Estraga um byte do hash no cabeçalho do segundo registro
+        try (FileChannel canal = FileChannel.open(arquivo(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer byteLido = ByteBuffer.allocate(1);
+            canal.read(byteLido, primeiro + 10);
+            canal.write(ByteBuffer.wrap(new byte[]{(byte) ~byteLido.get(0)}), primeiro + 10);
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertEquals("resposta a", armazem.buscar(A));
+            assertNull(armazem.buscar(B));
+            assertEquals("resposta c", armazem.buscar(C));
+            assertTrue(armazem.getCorrompidas() >= 1);
+            assertTrue(armazem.getBytesMortos() > 0);
+            assertEquals(tamanhoOriginal, Files.size(arquivo()));
+        }
+    }
+
+    @Test
+    void valorCorrompidoContaComoBytesMortos() throws IOException {
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+        }
+
+        // Último byte do valor: o cabeçalho continua íntegro
+        try (FileChannel canal = FileChannel.open(arquivo(), StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{'X'}), canal.size() - 1);
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertNull(armazem.buscar(A));
+            assertEquals(1, armazem.getCorrompidas());
+            assertEquals(armazem.getBytesArquivo(), armazem.getBytesMortos());
+        }
+    }
+
+    @Test
+    void remocaoSobreviveAReabertura() throws IOException {
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+            armazem.guardar(B, "resposta b", TTL);
+            armazem.remover(A);
+            assertNull(armazem.buscar(A));
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertNull(armazem.buscar(A));
+            assertEquals("resposta b", armazem.buscar(B));
+        }
+    }
+
+    @Test
+    void continuaGravandoDepoisDeCompactar() throws IOException {
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, "resposta a", TTL);
+            armazem.guardar(B, "resposta b", TTL);
+            armazem.remover(B);
+
+            armazem.compactar();
+            assertTrue(armazem.getCompactacoes() >= 1);
+            assertEquals(0, armazem.getBytesMortos());
+            assertEquals("resposta a", armazem.buscar(A));
+
+            armazem.guardar(C, "resposta c", TTL);
+            assertEquals("resposta c", armazem.buscar(C));
+        }
+
+        try (ArmazemRespostas armazem = abrir()) {
+            assertEquals("resposta a", armazem.buscar(A));
+            assertNull(armazem.buscar(B));
+            assertEquals("resposta c", armazem.buscar(C));
+        }
+    }
+
+    @Test
+    void remocaoComArquivoCheioTiraAChave() throws IOException {
+        String valor = "x".repeat(100);
+        long registro;
+        try (ArmazemRespostas armazem = abrir()) {
+            armazem.guardar(A, valor, TTL);
+            registro = armazem.getBytesArquivo();
+        }
+        Files.delete(arquivo());
+
+        // Cabem os dois registros, mas não a remoção depois deles
+        try (ArmazemRespostas armazem = new ArmazemRespostas(diretorio, 2 * registro + 10, 0.5)) {
+            armazem.guardar(A, valor, TTL);
+            armazem.guardar(B, valor, TTL);
+
+            armazem.remover(A);
+            assertNull(armazem.buscar(A));
+            assertEquals(valor, armazem.buscar(B));
+        }
+
+        try (ArmazemRespostas armazem = new ArmazemRespostas(diretorio, 2 * registro + 10, 0.5)) {
+            assertNull(armazem.buscar(A));
+            assertEquals(valor, armazem.buscar(B));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.tutoria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+public class CacheSemanticoTest {
+
+    private final CacheSemantico cache = new CacheSemantico(new EmbeddingLocal(256), 0.9, 1_000, 60_000);
+
+    private String buscar(String pergunta) {
+        return cache.buscarAsync(pergunta).join().getResposta();
+    }
+
+    private void guardar(String pergunta, String resposta) {
+        cache.guardar(cache.buscarAsync(pergunta).join(), resposta);
+    }
+
+    @Test
+    void ignoraAcentosMaiusculasEPalavrasVazias() {
+        guardar("o que é fotossíntese?", "resposta fotossíntese");
+
+        assertEquals("resposta fotossíntese", buscar("O que é a FOTOSSINTESE"));
+        assertEquals(1, cache.getAcertos());
+    }
+
+    @Test
+    void numeroDiferenteNaoAproveitaResposta() {
+        guardar("Qual a diferença entre mitose e meiose na fase 1?", "fase 1");
+
+        assertNull(buscar("Qual a diferença entre mitose e meiose na fase 2?"));
+        assertEquals("fase 1", buscar("qual a diferenca entre mitose e meiose na fase 1"));
+    }
+
+    @Test
+    void numeroAMaisOuAMenosNaoAproveitaResposta() {
+        guardar("Quem descobriu o Brasil em 1500?", "com ano");
+
+        assertNull(buscar("Quem descobriu o Brasil?"));
+    }
+
+    @Test
+    void negacaoNaoAproveitaResposta() {
+        guardar("Por que a mitose é importante?", "importante");
+
+        assertNull(buscar("Por que a mitose não é importante?"));
+    }
+
+    @Test
+    void perguntasQueSoDiferemNoNumeroFicamSeparadas() {
+        guardar("Qual a diferença entre mitose e meiose na fase 1?", "fase 1");
+        guardar("Qual a diferença entre mitose e meiose na fase 2?", "fase 2");
+
+        assertEquals(2, cache.tamanho());
+        assertEquals("fase 1", buscar("Qual a diferença entre mitose e meiose na fase 1?"));
+        assertEquals("fase 2", buscar("Qual a diferença entre mitose e meiose na fase 2?"));
+    }
+
+    @Test
+    void usaEmbeddingLocalQuandoOPrincipalFalha() {
+        FuncaoEmbedding foraDoAr = new FuncaoEmbedding() {
+            @Override
+            public String nome() {
+                return "remoto";
+            }
+
+            @Override
+            public CompletableFuture<float[]> embutirAsync(String texto) {
+                return CompletableFuture.failedFuture(new RuntimeException("fora do ar"));
+            }
+        };
+        CacheSemantico comReserva = new CacheSemantico(foraDoAr, 0.9, 1_000, 60_000);
+
+        comReserva.guardar(comReserva.buscarAsync("o que é fotossíntese?").join(), "resposta");
+
+        assertEquals("resposta", comReserva.buscarAsync("O que é a fotossintese").join().getResposta());
+        assertEquals(2, comReserva.getUsosReserva());
+    }
+}
@@ -0,0 +1,50 @@
+package com.tutoria.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class IndiceBM25Test {
+
+    private final IndiceBM25 indice = new IndiceBM25(List.of(
+            "A fotossíntese acontece nos cloroplastos das plantas.",
+            "Mitocôndrias produzem energia para a célula.",
+            "Fotossíntese, fotossíntese e mais fotossíntese: luz vira açúcar na fotossíntese.",
+            "A respiração celular consome glicose nas mitocôndrias.",
+            "Revisão geral sobre fotossíntese e respiração."));
+
+    @Test
+    void ordenaDoMaisRelevanteParaOMenos() {
+        // Com a mesma frequência, o trecho mais curto vem antes
+        assertArrayEquals(new int[]{2, 0, 4}, indice.buscar("fotossíntese", 5));
+    }
+
+    @Test
+    void devolveNoMaximoKTrechos() {
+        assertArrayEquals(new int[]{2, 0}, indice.buscar("fotossíntese", 2));
+        assertEquals(0, indice.buscar("fotossíntese", 0).length);
+    }
+
+    @Test
+    void ignoraAcentosMaiusculasEPalavrasVazias() {
+        assertArrayEquals(indice.buscar("fotossíntese", 5), indice.buscar("O que é a FOTOSSINTESE?", 5));
+    }
+
+    @Test
+    void termoRaroPesaMaisQueTermoComum() {
+        int[] resultado = indice.buscar("respiração na célula", 5);
+
+        // "celula" só aparece no trecho 1; "respiracao", em dois
+        assertEquals(1, resultado[0]);
+        assertEquals(3, resultado.length);
+    }
+
+    @Test
+    void semTermoEmComumNaoDevolveNada() {
+        assertEquals(0, indice.buscar("equação de segundo grau", 5).length);
+        assertEquals(0, indice.buscar("o que é isso?", 5).length);
+    }
+}
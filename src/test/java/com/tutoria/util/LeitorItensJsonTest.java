@@ -0,0 +1,124 @@
+package com.tutoria.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
+public class LeitorItensJsonTest {
+
+    private static final String RESPOSTA = "```json\n{\"titulo\": \"Revisão [\", \"questoes\": ["
+            + "{\"pergunta\": \"a \\\"}]\\\" {b\", \"opcoes\": [\"1\", \"2\"], \"extra\": {\"k\": [1, {}]}}, "
+            + "{\"pergunta\": \"c\"}, "
+            + "{\"pergunta\": \"d\"}"
+            + "]}\n```";
+
+    private final List<String> perguntas = new ArrayList<>();
+
+    private LeitorItensJson<String> leitor() {
+        return new LeitorItensJson<>("questoes", LeitorItensJsonTest::lerPergunta, perguntas::add);
+    }
+
+    private static String lerPergunta(JsonReader leitor) throws IOException {
+        String pergunta = null;
+        leitor.beginObject();
+        while (leitor.hasNext()) {
+            if (leitor.nextName().equals("pergunta")) {
+                pergunta = leitor.nextString();
+            } else {
+                leitor.skipValue();
+            }
+        }
+        leitor.endObject();
+        return pergunta;
+    }
+
+    @Test
+    void leRespostaInteiraDeUmaVez() {
+        LeitorItensJson<String> leitor = leitor();
+        leitor.alimentar(RESPOSTA);
+
+        assertEquals(3, leitor.finalizar());
+        assertTrue(leitor.isCompleto());
+        assertEquals(List.of("a \"}]\" {b", "c", "d"), perguntas);
+    }
+
+    @Test
+    void juntaItensDivididosEntreTrechos() {
+        LeitorItensJson<String> leitor = leitor();
+        int corte = RESPOSTA.indexOf("{b");
+        leitor.alimentar(RESPOSTA.substring(0, corte));
+        assertTrue(perguntas.isEmpty());
+
+        leitor.alimentar(RESPOSTA.substring(corte));
+        assertEquals(3, leitor.finalizar());
+        assertEquals(List.of("a \"}]\" {b", "c", "d"), perguntas);
+    }
+
+    @Test
+    void entregaCadaItemAssimQueFechaMesmoCaractereACaractere() {
+        LeitorItensJson<String> leitor = leitor();
+        int fimPrimeiro = RESPOSTA.indexOf("}}, ") + 2;
+
+        for (int i = 0; i < RESPOSTA.length(); i++) {
+            leitor.alimentar(String.valueOf(RESPOSTA.charAt(i)));
+            if (i == fimPrimeiro - 2) {
+                assertTrue(perguntas.isEmpty());
+            } else if (i == fimPrimeiro - 1) {
+                assertEquals(List.of("a \"}]\" {b"), perguntas);
+            }
+        }
+
+        assertEquals(3, leitor.finalizar());
+        assertEquals(List.of("a \"}]\" {b", "c", "d"), perguntas);
+    }
+
+    @Test
+    void respostaCortadaFalhaNoFinalizarMasGuardaOsItensFechados() {
+        LeitorItensJson<String> leitor = leitor();
+        leitor.alimentar(RESPOSTA.substring(0, RESPOSTA.indexOf("{\"pergunta\": \"d\"") + 5));
+
+        assertFalse(leitor.isCompleto());
+        assertEquals(2, leitor.getItens());
+        assertEquals(List.of("a \"}]\" {b", "c"), perguntas);
+        assertThrows(JsonParseException.class, leitor::finalizar);
+    }
+
+    @Test
+    void arrayAbertoSemFecharObjetoNaoEstaCompleto() {
+        LeitorItensJson<String> leitor = leitor();
+        leitor.alimentar("{\"questoes\": [{\"pergunta\": \"a\"}]");
+
+        assertEquals(1, leitor.getItens());
+        assertFalse(leitor.isCompleto());
+        assertThrows(JsonParseException.class, leitor::finalizar);
+    }
+
+    @Test
+    void semALista() {
+        LeitorItensJson<String> leitor = leitor();
+        leitor.alimentar("{\"flashcards\": [{\"pergunta\": \"a\"}]}");
+
+        assertTrue(leitor.isCompleto());
+        assertTrue(perguntas.isEmpty());
+        assertThrows(JsonParseException.class, leitor::finalizar);
+    }
+
+    @Test
+    void itemInvalidoFalhaNaHora() {
+        LeitorItensJson<String> leitor = leitor();
+
+        assertThrows(JsonParseException.class,
+                () -> leitor.alimentar("{\"questoes\": [{\"pergunta\": [1]}]}"));
+        assertTrue(perguntas.isEmpty());
+    }
+}